@@ -0,0 +1,24 @@
+package com.marvel.springsecurity.benchmark;
+
+import com.marvel.springsecurity.service.security.JwtService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Fixtures shared by the benchmarks. Everything is built without a Spring context
+ * so a benchmark measures only the code under test.
+ */
+final class BenchmarkSupport {
+
+    static final String SECRET = "e3f7a9c4b1d2e8f9257a6c4b3d2e1f0a4b6c8d9e0f1a2b3c4d5e6f798a1b2cd4";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtService jwtService() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 1800000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604800000L);
+        return jwtService;
+    }
+}
@@ -0,0 +1,83 @@
+package com.marvel.springsecurity.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.marvel.springsecurity.dto.BookDto;
+import com.marvel.springsecurity.model.Book;
+import com.marvel.springsecurity.model.ImageStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the book listing query rows into BookDto and serialization of the
+ * resulting page, as returned by GET /api/books (pages are serialized VIA_DTO).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class BookDtoBenchmark {
+
+    @Param({"10", "50"})
+    public int pageSize;
+
+    private List<Object[]> rows;
+    private Page<BookDto> page;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Book book = new Book(i, "Title " + i, "A description of book " + i + " long enough to be realistic.",
+                    "Author " + (i % 7), "Category " + (i % 5),
+                    "https://res.cloudinary.com/demo/image/upload/books/" + i,
+                    "books/" + i,
+                    "https://res.cloudinary.com/demo/image/upload/books/" + i + "_thumb",
+                    "https://res.cloudinary.com/demo/image/upload/books/" + i + "_card",
+                    ImageStatus.READY);
+            rows.add(new Object[]{book, 3.5 + (i % 3) * 0.5, (long) i * 3});
+        }
+        page = new PageImpl<>(mapRows(), PageRequest.of(0, pageSize), 1000);
+
+        // Same configuration as WebConfig.objectMapper()
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public List<BookDto> mapRows() {
+        List<BookDto> dtos = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            dtos.add(new BookDto(row));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new PagedModel<>(page));
+    }
+}
@@ -0,0 +1,57 @@
+package com.marvel.springsecurity.benchmark;
+
+import com.marvel.springsecurity.service.security.JwtService;
+import com.marvel.springsecurity.service.security.ParsedToken;
+import com.marvel.springsecurity.service.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and verification as done on login and on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkSupport.jwtService();
+        token = jwtService.generateToken("benchuser", "ROLE_USER", 0, 1);
+        verifiedTokenCache = new VerifiedTokenCache(1000);
+        verifiedTokenCache.put(token, jwtService.parse(token));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("benchuser", "ROLE_USER", 0, 1);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public ParsedToken verifiedTokenCacheHit() {
+        return verifiedTokenCache.get(token);
+    }
+}
@@ -0,0 +1,105 @@
+package com.marvel.springsecurity.benchmark;
+
+import com.marvel.springsecurity.config.JwtFilter;
+import com.marvel.springsecurity.service.security.JwtService;
+import com.marvel.springsecurity.service.security.RoleVersionService;
+import com.marvel.springsecurity.service.security.VerifiedTokenCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtFilter on a protected route (first sight of a token and a cached token),
+ * on a public read route, and for anonymous requests.
+ * The role-version check is stubbed, so database time is not included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtFilter filter;
+    private JwtFilter uncachedFilter;
+    private MockHttpServletRequest protectedRequest;
+    private MockHttpServletRequest publicRequest;
+    private MockHttpServletRequest anonymousRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = BenchmarkSupport.jwtService();
+        RoleVersionService roleVersions = new RoleVersionService() {
+            @Override
+            public boolean isTokenRoleVersionCurrent(String username, Integer tokenRoleVersion) {
+                return true;
+            }
+
+            @Override
+            public void evict(String username) {
+            }
+        };
+        filter = new JwtFilter(jwtService, roleVersions,
+                username -> { throw new UsernameNotFoundException(username); },
+                new VerifiedTokenCache(1000));
+        // A size-0 cache never holds entries: every request pays full verification
+        uncachedFilter = new JwtFilter(jwtService, roleVersions,
+                username -> { throw new UsernameNotFoundException(username); },
+                new VerifiedTokenCache(0));
+
+        String bearer = "Bearer " + jwtService.generateToken("benchuser", "ROLE_USER", 0, 1);
+        protectedRequest = new MockHttpServletRequest("GET", "/api/user/profile");
+        protectedRequest.addHeader("Authorization", bearer);
+        publicRequest = new MockHttpServletRequest("GET", "/api/books");
+        publicRequest.addHeader("Authorization", bearer);
+        anonymousRequest = new MockHttpServletRequest("GET", "/api/books");
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void protectedRouteVerified() throws ServletException, IOException {
+        uncachedFilter.doFilter(protectedRequest, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void protectedRouteCached() throws ServletException, IOException {
+        filter.doFilter(protectedRequest, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void publicRouteDeferred() throws ServletException, IOException {
+        filter.doFilter(publicRequest, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void anonymous() throws ServletException, IOException {
+        filter.doFilter(anonymousRequest, response, NO_OP_CHAIN);
+    }
+}
@@ -0,0 +1,110 @@
+package com.marvel.springsecurity.benchmark;
+
+import com.marvel.springsecurity.service.security.rateLimiting.CaffeineRateLimiter;
+import com.marvel.springsecurity.service.security.rateLimiting.ClientKey;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limiter decision and endpoint lookup, run in the interceptor on every request.
+ * Limits are set high enough that requests are always allowed, so the numbers show
+ * the cost of the check rather than of rejection logging.
+ * sharedKey: all threads hit one bucket (one client hammering an endpoint);
+ * perThreadKey: every thread has its own bucket (many clients).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RateLimiterBenchmark {
+
+    private static final String LIMITED = "/api/login";
+    private static final String UNLIMITED = "/api/books";
+    private static final ClientKey SHARED_KEY = ClientKey.parse("ip:10.0.0.1");
+
+    private RateLimitConfig config;
+    private CaffeineRateLimiter rateLimiter;
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        ClientKey key;
+
+        @Setup
+        public void setUp() {
+            key = ClientKey.parse("ip:10.0.0." + NEXT.incrementAndGet());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        config = new RateLimitConfig();
+        config.setLogin(new RateLimitConfig.EndpointLimit(Integer.MAX_VALUE, 1));
+        rateLimiter = new CaffeineRateLimiter(config);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean sharedKey1Thread() {
+        return rateLimiter.allowRequest(SHARED_KEY, LIMITED);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean sharedKey4Threads() {
+        return rateLimiter.allowRequest(SHARED_KEY, LIMITED);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean sharedKeyMaxThreads() {
+        return rateLimiter.allowRequest(SHARED_KEY, LIMITED);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean perThreadKey4Threads(ThreadKey threadKey) {
+        return rateLimiter.allowRequest(threadKey.key, LIMITED);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean perThreadKeyMaxThreads(ThreadKey threadKey) {
+        return rateLimiter.allowRequest(threadKey.key, LIMITED);
+    }
+
+    @Benchmark
+    public boolean unlimitedEndpoint() {
+        return rateLimiter.allowRequest(SHARED_KEY, UNLIMITED);
+    }
+
+    @Benchmark
+    public RateLimitConfig.EndpointLimit configExactMatch() {
+        return config.getConfigForEndpoint("/api/login");
+    }
+
+    @Benchmark
+    public RateLimitConfig.EndpointLimit configPrefixMatch() {
+        return config.getConfigForEndpoint("/api/user/update-name");
+    }
+
+    @Benchmark
+    public RateLimitConfig.EndpointLimit configMiss() {
+        return config.getConfigForEndpoint("/api/book/42/comment");
+    }
+}
@@ -0,0 +1,101 @@
+package com.marvel.springsecurity.benchmark;
+
+import com.marvel.springsecurity.service.security.rateLimiting.TokenBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock-free GCRA bucket against the previous synchronized double-based bucket,
+ * both shared by all threads (one client hammering one endpoint).
+ * "allowing" keeps the bucket from running dry; "rejecting" is the attack case
+ * where the bucket is empty and nearly every call is denied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class TokenBucketBenchmark {
+
+    @Param({"allowing", "rejecting"})
+    public String load;
+
+    private TokenBucket lockFree;
+    private SynchronizedTokenBucket synchronizedBucket;
+
+    @Setup
+    public void setUp() {
+        int capacity = "allowing".equals(load) ? Integer.MAX_VALUE : 10;
+        int windowSeconds = "allowing".equals(load) ? 1 : 900;
+        lockFree = new TokenBucket(capacity, windowSeconds);
+        synchronizedBucket = new SynchronizedTokenBucket(capacity, windowSeconds);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean lockFree1Thread() {
+        return lockFree.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean lockFreeMaxThreads() {
+        return lockFree.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean synchronized1Thread() {
+        return synchronizedBucket.tryConsume();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean synchronizedMaxThreads() {
+        return synchronizedBucket.tryConsume();
+    }
+
+    /**
+     * The bucket CaffeineRateLimiter used before the GCRA version, kept as the baseline.
+     */
+    static final class SynchronizedTokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+
+        SynchronizedTokenBucket(int capacity, int windowSeconds) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+            this.tokensPerNano = (double) capacity / TimeUnit.SECONDS.toNanos(windowSeconds);
+        }
+
+        synchronized boolean tryConsume() {
+            long now = System.nanoTime();
+            long elapsedNanos = now - lastRefillNanos;
+            if (elapsedNanos > 0) {
+                tokens = Math.min(capacity, tokens + elapsedNanos * tokensPerNano);
+                lastRefillNanos = now;
+            }
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
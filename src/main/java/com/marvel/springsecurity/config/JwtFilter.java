@@ -1,25 +1,33 @@
 package com.marvel.springsecurity.config;
 
 import com.marvel.springsecurity.service.security.JwtService;
+import com.marvel.springsecurity.service.security.ParsedToken;
 import com.marvel.springsecurity.service.security.RoleVersionService;
-import io.jsonwebtoken.Claims;
+import com.marvel.springsecurity.service.security.UserPrincipal;
+import com.marvel.springsecurity.service.security.VerifiedTokenCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
@@ -27,11 +35,14 @@ public class JwtFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final RoleVersionService roleVersionService;
     private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtFilter(JwtService jwtService, RoleVersionService roleVersionService, UserDetailsService userDetailsService) {
+    public JwtFilter(JwtService jwtService, RoleVersionService roleVersionService, UserDetailsService userDetailsService,
+                     VerifiedTokenCache verifiedTokenCache) {
         this.jwtService = jwtService;
         this.roleVersionService = roleVersionService;
         this.userDetailsService = userDetailsService;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -39,61 +50,109 @@ public class JwtFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
 
         // Extract token from Authorization header
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            try {
-                Claims claims = jwtService.extractAllClaims(token);
-                username = claims.getSubject();
-                String role = claims.get("role", String.class);
-                Integer tokenRoleVersion = claims.get("roleVersion", Integer.class);
-
-                // Validate token and set authentication
-                if (username != null && role != null && tokenRoleVersion != null
-                        && SecurityContextHolder.getContext().getAuthentication() == null
-                        && jwtService.validateToken(token)
-                        && roleVersionService.isTokenRoleVersionCurrent(username, tokenRoleVersion)) {
+            String token = authHeader.substring(7);
+            SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
 
-                    // Ensure role has ROLE_ prefix
-                    if (!role.startsWith("ROLE_")) {
-                        role = "ROLE_" + role;
+            if (PublicReadRoutes.matches(request)) {
+                // Public reads do not depend on the caller: only verify the token if something
+                // (e.g. @AuthenticationPrincipal or SecurityContextHolder) actually reads the context
+                Supplier<SecurityContext> previous = strategy.getDeferredContext();
+                strategy.setDeferredContext(SingletonSupplier.of(() -> {
+                    SecurityContext context = previous.get();
+                    if (context.getAuthentication() != null) {
+                        return context;
                     }
-
-            // Load full UserDetails (UserPrincipal) so downstream code can access userId
-            try {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            UsernamePasswordAuthenticationToken authToken =
-                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authToken);
-            } catch (Exception e) {
-            // Fallback to username-based auth if user details cannot be loaded
-            List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
-            UsernamePasswordAuthenticationToken authToken =
-                new UsernamePasswordAuthenticationToken(username, null, authorities);
-            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+                    Authentication authentication = resolveAuthentication(request, token);
+                    if (authentication == null) {
+                        return context;
+                    }
+                    SecurityContext authenticated = strategy.createEmptyContext();
+                    authenticated.setAuthentication(authentication);
+                    return authenticated;
+                }));
+            } else if (strategy.getContext().getAuthentication() == null) {
+                Authentication authentication = resolveAuthentication(request, token);
+                if (authentication != null) {
+                    strategy.getContext().setAuthentication(authentication);
                 }
-            } catch (io.jsonwebtoken.ExpiredJwtException e) {
-                // Token expired - log and continue without auth
-                logger.debug("JWT token expired: " + e.getMessage());
-            } catch (io.jsonwebtoken.security.SignatureException e) {
-                // Invalid signature - log and continue without auth
-                logger.warn("Invalid JWT signature: " + e.getMessage());
-            } catch (io.jsonwebtoken.MalformedJwtException e) {
-                // Malformed token - log and continue without auth
-                logger.warn("Malformed JWT token: " + e.getMessage());
-            } catch (Exception e) {
-                // Other errors - log and continue without auth
-                logger.error("JWT processing error: " + e.getMessage());
             }
         }
 
         // Continue filter chain
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Verify the bearer token and build the authentication for it.
+     * Does not read or write the SecurityContext, so it can run inside a deferred context supplier.
+     *
+     * @return the authentication, or null if the token is invalid, expired or has a stale role version
+     */
+    private Authentication resolveAuthentication(HttpServletRequest request, String token) {
+        try {
+            // At most one verification per request (none for tokens seen before); the
+            // result is shared with later components via a request attribute
+            ParsedToken parsed = verifiedTokenCache.get(token);
+            if (parsed == null) {
+                parsed = jwtService.parse(token);
+                verifiedTokenCache.put(token, parsed);
+            }
+            request.setAttribute(ParsedToken.REQUEST_ATTRIBUTE, parsed);
+            String username = parsed.subject();
+            String role = parsed.role();
+            Integer tokenRoleVersion = parsed.roleVersion();
+
+            if (username == null || role == null || tokenRoleVersion == null) {
+                return null;
+            }
+            if (!roleVersionService.isTokenRoleVersionCurrent(username, tokenRoleVersion)) {
+                // Role version was bumped (or user is gone): this token will never be accepted again
+                verifiedTokenCache.invalidate(token);
+                return null;
+            }
+
+            // Ensure role has ROLE_ prefix
+            if (!role.startsWith("ROLE_")) {
+                role = "ROLE_" + role;
+            }
+
+            // Tokens carrying userId are enough to build the principal without touching the database
+            if (parsed.userId() != null) {
+                UserPrincipal principal = UserPrincipal.fromToken(parsed, role);
+                return authenticationFor(request, principal, principal.getAuthorities());
+            }
+            // Older tokens without userId: load full UserDetails (UserPrincipal) so downstream code can access userId
+            try {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                return authenticationFor(request, userDetails, userDetails.getAuthorities());
+            } catch (Exception e) {
+                // Fallback to username-based auth if user details cannot be loaded
+                return authenticationFor(request, username, List.of(new SimpleGrantedAuthority(role)));
+            }
+        } catch (io.jsonwebtoken.ExpiredJwtException e) {
+            // Token expired - log and continue without auth
+            logger.debug("JWT token expired: " + e.getMessage());
+        } catch (io.jsonwebtoken.security.SignatureException e) {
+            // Invalid signature - log and continue without auth
+            logger.warn("Invalid JWT signature: " + e.getMessage());
+        } catch (io.jsonwebtoken.MalformedJwtException e) {
+            // Malformed token - log and continue without auth
+            logger.warn("Malformed JWT token: " + e.getMessage());
+        } catch (Exception e) {
+            // Other errors - log and continue without auth
+            logger.error("JWT processing error: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private Authentication authenticationFor(HttpServletRequest request, Object principal,
+                                             Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        return authToken;
+    }
 }
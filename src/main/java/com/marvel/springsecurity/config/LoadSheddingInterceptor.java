@@ -0,0 +1,108 @@
+package com.marvel.springsecurity.config;
+
+import com.marvel.springsecurity.exception.ServiceUnavailableException;
+import com.marvel.springsecurity.service.security.rateLimiting.AdaptiveConcurrencyLimiter;
+import com.marvel.springsecurity.service.security.rateLimiting.LoadSheddingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sheds load on expensive endpoint classes (by default the BCrypt-bound auth endpoints):
+ * once a class has as many requests running as its adaptive concurrency limit allows,
+ * further ones get 503 with Retry-After right away. A login storm from many IPs, which
+ * per-IP rate limits do not stop, then cannot take every core away from cheap requests.
+ */
+@Slf4j
+@Component
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".start";
+    private static final String LIMITER_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".limiter";
+
+    private record ShedClass(List<PathPattern> patterns, AdaptiveConcurrencyLimiter limiter) {
+    }
+
+    private final LoadSheddingConfig config;
+    private final List<ShedClass> classes = new ArrayList<>();
+    private final List<String> paths = new ArrayList<>();
+
+    public LoadSheddingInterceptor(LoadSheddingConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        for (Map.Entry<String, LoadSheddingConfig.EndpointClass> entry : config.getClasses().entrySet()) {
+            LoadSheddingConfig.EndpointClass endpointClass = entry.getValue();
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(entry.getKey(),
+                    endpointClass.getInitialLimit(), endpointClass.getMinLimit(), endpointClass.getMaxLimit(),
+                    endpointClass.getLatencyTolerance(), meterRegistry);
+            List<PathPattern> patterns = endpointClass.getPaths().stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList();
+            classes.add(new ShedClass(patterns, limiter));
+            paths.addAll(endpointClass.getPaths());
+            log.info("Load shedding class '{}' on {} with initial limit {}",
+                    entry.getKey(), endpointClass.getPaths(), limiter.getLimit());
+        }
+    }
+
+    /**
+     * Paths of all classes, for registering the interceptor.
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request);
+        if (limiter == null) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            throw new ServiceUnavailableException("Server is busy, please retry", config.getRetryAfterSeconds());
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request,
+                                @NonNull HttpServletResponse response,
+                                @NonNull Object handler,
+                                Exception ex) {
+        if (request.getAttribute(LIMITER_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter limiter
+                && request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            limiter.release(start, ex == null && response.getStatus() >= 200 && response.getStatus() < 300);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer container = PathContainer.parsePath(path);
+        for (ShedClass shedClass : classes) {
+            for (PathPattern pattern : shedClass.patterns()) {
+                if (pattern.matches(container)) {
+                    return shedClass.limiter();
+                }
+            }
+        }
+        return null;
+    }
+}
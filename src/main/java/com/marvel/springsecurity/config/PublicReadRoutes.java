@@ -0,0 +1,50 @@
+package com.marvel.springsecurity.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GET endpoints open to anonymous users (browsing without login).
+ * Shared by SecurityConfig, which permits them, and JwtFilter, which defers
+ * authentication on them until something actually asks for the principal.
+ */
+public final class PublicReadRoutes {
+
+    static final String[] GET_PATTERNS = {
+            "/api/books",
+            "/api/bookid/**",
+            "/api/books/search",
+            "/api/book/*/ratings",
+            "/api/book/*/comment",
+            "/api/book/categories",
+            "/api/book/authors",
+            "/api/images/**"
+    };
+
+    private static final List<PathPattern> PATTERNS = Arrays.stream(GET_PATTERNS)
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+
+    private PublicReadRoutes() {
+    }
+
+    public static boolean matches(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : PATTERNS) {
+            if (pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
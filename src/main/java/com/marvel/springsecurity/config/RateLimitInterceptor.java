@@ -1,23 +1,44 @@
 package com.marvel.springsecurity.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.springsecurity.exception.BadRequestException;
 import com.marvel.springsecurity.service.security.JwtService;
+import com.marvel.springsecurity.service.security.ParsedToken;
+import com.marvel.springsecurity.service.security.rateLimiting.ClientKey;
+import com.marvel.springsecurity.service.security.rateLimiting.IpWhitelist;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitDecision;
 import com.marvel.springsecurity.service.security.rateLimiting.RateLimitInfo;
 import com.marvel.springsecurity.service.security.rateLimiting.RateLimiterService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.io.IOException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interceptor to enforce rate limiting on specified endpoints.
  * Extracts identifier (IP or user email) and checks rate limits before allowing request.
+ * Public reads (ratelimit.read.costs) are charged by cost against a per-IP read budget
+ * instead, and their page size is capped.
+ * <p>
+ * The client IP is the connection's remote address. X-Forwarded-For and X-Real-IP are
+ * only honoured on connections from a trusted proxy (loopback plus trusted-proxies),
+ * since anyone else can put any address in them. While trusted-proxies is not set they
+ * are honoured on every connection, so deployments behind a router keep working until
+ * it is configured.
  */
 @Slf4j
 @Component
@@ -26,52 +47,74 @@ public class RateLimitInterceptor implements HandlerInterceptor {
     private final RateLimiterService rateLimiterService;
     private final JwtService jwtService;
     private final ObjectMapper objectMapper;
+    // Loopback is always whitelisted; "whitelist" adds addresses and CIDR ranges
+    private final IpWhitelist whitelist;
+    // Reverse proxies whose forwarding headers are believed; loopback is always included
+    private final IpWhitelist trustedProxies;
+    // trusted-proxies not configured: forwarding headers are believed from anyone
+    private final boolean trustAnyProxy;
+    private final RateLimitConfig.ReadLimits readLimits;
+    private final List<ReadCost> readCosts = new ArrayList<>();
 
-    @Value("${whitelist:}")
-    private String whiteListIp;
+    private record ReadCost(PathPattern pattern, int baseCost, int defaultPageSize) {
+    }
 
     public RateLimitInterceptor(RateLimiterService rateLimiterService,
                                 JwtService jwtService,
-                                ObjectMapper objectMapper) {
+                                ObjectMapper objectMapper,
+                                RateLimitConfig rateLimitConfig,
+                                @Value("${whitelist:}") String whitelist,
+                                @Value("${trusted-proxies:}") String trustedProxies) {
         this.rateLimiterService = rateLimiterService;
         this.jwtService = jwtService;
         this.objectMapper = objectMapper;
+        this.whitelist = IpWhitelist.parse("127.0.0.1,::1," + whitelist);
+        this.trustedProxies = IpWhitelist.parse("127.0.0.1,::1," + trustedProxies);
+        this.trustAnyProxy = trustedProxies.isBlank();
+        if (trustAnyProxy) {
+            log.warn("trusted-proxies (TRUSTED_PROXIES) is not set: X-Forwarded-For and X-Real-IP are believed "
+                    + "from any client, which lets clients choose their rate limit key. Set it to the "
+                    + "addresses of the reverse proxies in front of this service");
+        }
+        this.readLimits = rateLimitConfig.getRead();
+        for (Map.Entry<String, Integer> entry : readLimits.getCosts().entrySet()) {
+            readCosts.add(new ReadCost(PathPatternParser.defaultInstance.parse(entry.getKey()), entry.getValue(),
+                    readLimits.getDefaultPageSizes().getOrDefault(entry.getKey(), 0)));
+        }
     }
 
-    private Set<String> whitelistedIps;
+    /**
+     * Paths of the cost-weighted read endpoints, for registering the interceptor.
+     */
+    public List<String> getReadPaths() {
+        return List.copyOf(readLimits.getCosts().keySet());
+    }
 
     @Override
     public boolean preHandle(@NonNull HttpServletRequest request,
                              @NonNull HttpServletResponse response,
                              @NonNull Object handler) throws Exception {
 
-        // Initialize whitelist lazily (after Spring injection)
-        if (whitelistedIps == null) {
-            whitelistedIps = new HashSet<>();
-            whitelistedIps.add("127.0.0.1");
-            if (whiteListIp != null && !whiteListIp.isBlank()) {
-                whitelistedIps.addAll(Arrays.asList(whiteListIp.split(",")));
-            }
-        }
+        // Page size cap applies to everyone, whitelisted or not
+        int readCost = readCost(request);
 
-        String ip = getClientIp(request);
-        if (whitelistedIps.contains(ip)) {
+        ClientKey ip = getClientIp(request);
+        if (whitelist.contains(ip)) {
             return true; // Skip rate limiting for whitelisted IPs
         }
 
         String endpoint = request.getRequestURI();
-        String identifier = extractIdentifier(request, endpoint);
 
-        // Check rate limit
-        boolean allowed = rateLimiterService.allowRequest(identifier, endpoint);
-
-        // Get rate limit info for headers
-        RateLimitInfo info = rateLimiterService.getLimitInfo(identifier, endpoint);
+        // Check rate limit; the info for the headers comes from the same bucket update
+        RateLimitDecision decision = readCost > 0
+                ? rateLimiterService.tryAcquireRead(ip, endpoint, readCost)
+                : rateLimiterService.tryAcquire(extractIdentifier(request, endpoint, ip), endpoint);
+        RateLimitInfo info = decision.info();
 
         // Add rate limit headers to response
         addRateLimitHeaders(response, info);
 
-        if (!allowed) {
+        if (!decision.allowed()) {
             // Rate limit exceeded - return 429
             sendRateLimitExceededResponse(response, info);
             return false;
@@ -80,24 +123,69 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         return true;
     }
 
+    /**
+     * Tokens a public read costs, or 0 if the request is not a cost-weighted read.
+     *
+     * @throws BadRequestException if the requested page size is above ratelimit.read.max-page-size
+     */
+    private int readCost(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return 0;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer container = PathContainer.parsePath(path);
+        for (ReadCost readCost : readCosts) {
+            if (readCost.pattern().matches(container)) {
+                return readLimits.costOf(readCost.baseCost(), pageSize(request, readCost.defaultPageSize()));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Requested page size; the endpoint's default page size when the request has none,
+     * 0 for an invalid one (which the controller rejects).
+     */
+    private int pageSize(HttpServletRequest request, int defaultPageSize) {
+        String size = request.getParameter("size");
+        if (size == null) {
+            return defaultPageSize;
+        }
+        int pageSize;
+        try {
+            pageSize = Integer.parseInt(size.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        if (pageSize > readLimits.getMaxPageSize()) {
+            throw new BadRequestException("Page size must not exceed " + readLimits.getMaxPageSize());
+        }
+        return pageSize;
+    }
+
     /**
      * Extract unique identifier for rate limiting.
      * Strategy:
      * - Public endpoints (register, login, available, oauth): Use IP address
      * - Authenticated endpoints (verify, reset, resend): Use email from JWT token
      */
-    private String extractIdentifier(HttpServletRequest request, String endpoint) {
+    private ClientKey extractIdentifier(HttpServletRequest request, String endpoint, ClientKey ip) {
         // Endpoints that should use email from JWT (authenticated/semi-authenticated)
         boolean useJwtEmail = endpoint.contains("/verify-email")
                 || endpoint.contains("/reset-password")
                 || endpoint.contains("/resend-verification");
 
         if (useJwtEmail) {
+            // Bearer token already verified by JwtFilter: reuse it instead of parsing again
+            ParsedToken parsed = ParsedToken.fromRequest(request);
+            if (parsed != null && parsed.subject() != null) {
+                return ClientKey.ofEmail(parsed.subject());
+            }
             String token = extractTokenFromRequest(request);
             if (token != null) {
                 String email = jwtService.extractEmail(token);
                 if(email != null){
-                    return "email:" + email;
+                    return ClientKey.ofEmail(email);
                 }else{
                     log.debug("Could not extract email from token, falling back to IP");
                 }
@@ -105,8 +193,7 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
 
         // Default: use IP address
-        String ip = getClientIp(request);
-        return "ip:" + ip;
+        return ip;
     }
 
     /**
@@ -125,23 +212,67 @@ public class RateLimitInterceptor implements HandlerInterceptor {
 
 
     /**
-     * Get client IP address, checking for proxy headers.
+     * Get client IP address: the remote address, or for requests from a trusted proxy the
+     * address it forwarded. Parsed in place from the header, without substrings.
      */
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("X-Real-IP");
+    private ClientKey getClientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        ClientKey remote = remoteAddr != null ? address(remoteAddr, 0, remoteAddr.length()) : null;
+        if (remote == null) {
+            // Not an address literal (e.g. a unix socket): key by the raw value
+            return ClientKey.parse(remoteAddr != null ? remoteAddr : "unknown");
         }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
+        if (!trustAnyProxy && !trustedProxies.contains(remote)) {
+            return remote;
         }
 
-        // X-Forwarded-For can contain multiple IPs, take the first one
-        if (ip != null && ip.contains(",")) {
-            ip = ip.split(",")[0].trim();
+        ClientKey forwarded = forwardedClient(request.getHeader("X-Forwarded-For"));
+        if (forwarded == null) {
+            String realIp = request.getHeader("X-Real-IP");
+            forwarded = realIp != null ? address(realIp, 0, realIp.length()) : null;
         }
+        return forwarded != null ? forwarded : remote;
+    }
 
-        return ip;
+    /**
+     * Client address in an X-Forwarded-For header. Each proxy appends the address it got the
+     * request from, so the header is read right to left and the first address that is not a
+     * trusted proxy is the client; entries further left were supplied by the client itself.
+     * Without trusted-proxies only the last entry, added by the nearest proxy, is used.
+     * Null if the header is missing or its last entry is not an address (e.g. "unknown").
+     */
+    private ClientKey forwardedClient(String header) {
+        if (header == null) {
+            return null;
+        }
+        ClientKey client = null;
+        int end = header.length();
+        while (end > 0) {
+            int start = header.lastIndexOf(',', end - 1) + 1;
+            ClientKey address = address(header, start, end);
+            if (address == null) {
+                break;
+            }
+            client = address;
+            if (trustAnyProxy || !trustedProxies.contains(address)) {
+                break;
+            }
+            end = start - 1;
+        }
+        return client;
+    }
+
+    /**
+     * Address in header[start, end), ignoring surrounding whitespace; null if it is not one.
+     */
+    private static ClientKey address(String header, int start, int end) {
+        while (start < end && Character.isWhitespace(header.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(header.charAt(end - 1))) {
+            end--;
+        }
+        return ClientKey.ofAddress(header, start, end);
     }
 
     /**
@@ -85,7 +85,8 @@ public class SecurityConfig {
                                                                 "/api/available/**",
                                                                 "/api/forgot-password",
                                                                 "/api/resend-verification",
-                                                                "/api/user/refresh-token")
+                                                                "/api/user/refresh-token",
+                                                                "/api/user/logout")
                                                 .permitAll()
 
                                                 // Manual OAuth callback endpoint
@@ -98,17 +99,15 @@ public class SecurityConfig {
                                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
                                                 // Public read endpoints (browsing without login)
-                                                .requestMatchers(HttpMethod.GET,
-                                                                "/api/books",
-                                                                "/api/bookid/**",
-                                                                "/api/books/search",
-                                                                "/api/book/*/ratings",
-                                                                "/api/book/*/comment",
-                                                                "/api/book/categories",
-                                                                "/api/book/authors")
+                                                .requestMatchers(HttpMethod.GET, PublicReadRoutes.GET_PATTERNS)
                                                 .permitAll()
                                                 // email validation(reset password and email verification)
                                                 .requestMatchers("/api/validate/**").permitAll()
+                                                // Health (status only) stays open for liveness/readiness probes
+                                                .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**")
+                                                .permitAll()
+                                                // Rest of actuator (metrics, circuit breakers, bulkheads) is admin only
+                                                .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                                                 // Everything else requires authentication
                                                 .anyRequest().authenticated())
@@ -3,8 +3,6 @@ package com.marvel.springsecurity.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.marvel.springsecurity.service.security.JwtService;
-import com.marvel.springsecurity.service.security.rateLimiting.RateLimiterService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,10 +19,8 @@ public class WebConfig {
     private String frontendUrl;
 
     @Bean
-    public WebMvcConfigurer corsConfigurer(
-            RateLimiterService rateLimiterService,
-            JwtService jwtService,
-            ObjectMapper objectMapper) {
+    public WebMvcConfigurer corsConfigurer(RateLimitInterceptor rateLimitInterceptor,
+                                           LoadSheddingInterceptor loadSheddingInterceptor) {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(@NonNull CorsRegistry registry) {
@@ -38,8 +34,7 @@ public class WebConfig {
             @Override
             public void addInterceptors(@NonNull InterceptorRegistry registry) {
                 // Register rate limiting interceptor
-                registry.addInterceptor(
-                        new RateLimitInterceptor(rateLimiterService, jwtService, objectMapper)).addPathPatterns(
+                registry.addInterceptor(rateLimitInterceptor).addPathPatterns(
                                 "/api/register",
                                 "/api/register/**",
                                 "/api/login",
@@ -52,9 +47,15 @@ public class WebConfig {
                                 "/api/oauth/submit-email", // OAuth email submission - prevents abuse
                                 "/api/user", // User updates
                                 "/api/user/**" // All user sub-endpoints (profile pic, name, password)
+                ).addPathPatterns(
+                        rateLimitInterceptor.getReadPaths() // Public reads, charged by cost against a read budget
                 ).excludePathPatterns(
                         "/api/oauth/health",
                         "/actuator/**");
+
+                // After rate limiting, so rate limited requests never take a concurrency slot
+                registry.addInterceptor(loadSheddingInterceptor)
+                        .addPathPatterns(loadSheddingInterceptor.getPaths());
             }
         };
     }
@@ -1,23 +1,56 @@
 package com.marvel.springsecurity.controller;
 
-import com.marvel.springsecurity.service.security.rateLimiting.CaffeineRateLimiter;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.marvel.springsecurity.dto.RateLimitStatusDto;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitInfo;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitMetrics;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimiterService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("api/admin")
 @PreAuthorize("hasAuthority('ROLE_ADMIN')")
 public class AdminController {
 
-    @Autowired
-    private CaffeineRateLimiter rateLimiter;
+    private final RateLimiterService rateLimiter;
+    private final RateLimitMetrics rateLimitMetrics;
+    private final RateLimitConfig rateLimitConfig;
+
+    public AdminController(RateLimiterService rateLimiter, RateLimitMetrics rateLimitMetrics,
+                           RateLimitConfig rateLimitConfig) {
+        this.rateLimiter = rateLimiter;
+        this.rateLimitMetrics = rateLimitMetrics;
+        this.rateLimitConfig = rateLimitConfig;
+    }
 
+    // Allowed/rejected counts per endpoint and the most limited clients (emails shown hashed)
     @GetMapping("/rate-limit-status")
-    public ResponseEntity<String> getRateLimitStatus(){
-        return ResponseEntity.ok(rateLimiter.getCacheStats());
+    public ResponseEntity<RateLimitStatusDto> getRateLimitStatus(){
+        return ResponseEntity.ok(RateLimitStatusDto.builder()
+                .enabled(rateLimitConfig.isEnabled())
+                .cache(rateLimiter.getCacheStats())
+                .endpoints(rateLimitMetrics.endpointCounts())
+                .topOffenders(rateLimitMetrics.topOffenders())
+                .build());
+    }
+
+    // identifier as used by the rate limiter, e.g. "ip:203.0.113.7" or "email:user@example.com"
+    @GetMapping("/rate-limits")
+    public ResponseEntity<List<RateLimitInfo>> getRateLimits(@RequestParam String identifier) {
+        return ResponseEntity.ok(rateLimiter.inspect(identifier));
+    }
+
+    @DeleteMapping("/rate-limits")
+    public ResponseEntity<Void> resetRateLimits(@RequestParam String identifier) {
+        rateLimiter.resetLimit(identifier);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -6,6 +6,7 @@ import com.marvel.springsecurity.dto.projections.AuthorAndCountProjection;
 import com.marvel.springsecurity.dto.projections.CategoryAndCountProjection;
 import com.marvel.springsecurity.model.Book;
 import com.marvel.springsecurity.model.Comment;
+import com.marvel.springsecurity.model.ImageStatus;
 import com.marvel.springsecurity.model.Rating;
 import com.marvel.springsecurity.service.book.BookService;
 import com.marvel.springsecurity.service.security.UserPrincipal;
@@ -16,8 +17,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -37,9 +40,15 @@ public class BookController {
 
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @PostMapping(path = "/addbook")
-    public ResponseEntity<String> addBook(@RequestPart Book book, @RequestPart MultipartFile imageFile) {
+    public ResponseEntity<String> addBook(@RequestPart Book book, @RequestPart MultipartFile imageFile,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
             // System.out.println("book = " + book);
+            if (async) {
+                Book saved = bookService.addBookAsync(book, imageFile);
+                return ResponseEntity.accepted().location(imageStatusUri(saved.getBookId()))
+                        .body("Book added, cover upload in progress");
+            }
             bookService.addBook(book, imageFile);
             return ResponseEntity.status(HttpStatus.CREATED).body("Book added successfully");
         } catch (IOException e) {
@@ -85,10 +94,17 @@ public class BookController {
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @PutMapping("/book/{id}")
     public ResponseEntity<String> updateBook(@PathVariable int id, @RequestPart Book book,
-            @RequestPart(required = false) MultipartFile imageFile) {
+            @RequestPart(required = false) MultipartFile imageFile,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
-            boolean updated = bookService.updateBook(id, book, imageFile);
-            if (updated) {
+            boolean backgroundUpload = async && imageFile != null && !imageFile.isEmpty();
+            boolean updated = backgroundUpload
+                    ? bookService.updateBookAsync(id, book, imageFile)
+                    : bookService.updateBook(id, book, imageFile);
+            if (updated && backgroundUpload) {
+                return ResponseEntity.accepted().location(imageStatusUri(id))
+                        .body("Book updated, cover upload in progress");
+            } else if (updated) {
                 return ResponseEntity.ok("Book updated successfully");
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Book not found");
@@ -99,6 +115,23 @@ public class BookController {
         }
     }
 
+    /**
+     * Status of a cover uploaded with async=true (PENDING, READY or FAILED)
+     **/
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @GetMapping("/book/{id}/image-status")
+    public ResponseEntity<Map<String, Object>> getImageStatus(@PathVariable int id) {
+        ImageStatus status = bookService.getImageStatus(id);
+        return ResponseEntity.ok(Map.of("bookId", id, "imageStatus", status));
+    }
+
+    private URI imageStatusUri(int bookId) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/book/{id}/image-status")
+                .buildAndExpand(bookId)
+                .toUri();
+    }
+
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @DeleteMapping("/book/{id}")
     public ResponseEntity<String> deleteBook(@PathVariable int id) {
@@ -0,0 +1,190 @@
+package com.marvel.springsecurity.controller;
+
+import com.marvel.springsecurity.service.book.store.LocalImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves images kept by the local image store (image.store=local).
+ * Uses Tomcat's sendfile when the connector supports it and falls back to
+ * FileChannel.transferTo otherwise. Single byte ranges and ETags are supported;
+ * images are content addressed, so they are cached as immutable.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/images")
+@ConditionalOnProperty(name = "image.store", havingValue = "local")
+public class ImageController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalImageStore imageStore;
+
+    public ImageController(LocalImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    @GetMapping("/**")
+    public void getImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String prefix = request.getContextPath() + "/api/images/";
+        String uri = request.getRequestURI();
+        if (!uri.startsWith(prefix)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String publicId = uri.substring(prefix.length());
+        Path path = imageStore.resolve(publicId);
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = Files.size(path);
+        String etag = "\"" + publicId.replace('/', '-') + "-" + size + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etag))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // If-Range with a different validator means the client's partial copy is stale: send everything
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            rangeHeader = null;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        if (rangeHeader != null) {
+            long[] range = parseRange(rangeHeader, size);
+            if (range == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range.length == 2) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(detectContentType(path));
+        response.setContentLengthLong(length);
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+
+        // Let Tomcat hand the file to the kernel (sendfile) after the servlet returns
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Parse a single "bytes=" range.
+     *
+     * @return {start, end} for a satisfiable range, an empty array if the header should be
+     *         ignored (other units or multiple ranges, answered with the full body), or null
+     *         if the range cannot be satisfied
+     */
+    private long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // Suffix range: last N bytes
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    /**
+     * Files are stored without extension, so look at the magic bytes.
+     */
+    private String detectContentType(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        byte[] b = header.array();
+        if ((b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if ((b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (b[0] == 'G' && b[1] == 'I' && b[2] == 'F') {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F' && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+}
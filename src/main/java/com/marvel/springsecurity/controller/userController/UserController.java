@@ -157,6 +157,14 @@ public class UserController {
         return ResponseEntity.ok(jwt);
     }
 
+    @PostMapping("/user/logout")
+    public ResponseEntity<Void> logout(@RequestBody JwtResponse response) {
+        if (response != null && response.getRefreshToken() != null) {
+            userService.logout(response.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     // TODO: [LONG TERM] Implement magic link login (passwordless)
     // Endpoint: POST /api/auth/magic-link
     // Body: { "email": "user@example.com" }
@@ -2,6 +2,7 @@ package com.marvel.springsecurity.dto;
 
 import com.marvel.springsecurity.dto.projections.AvgAndCountProjection;
 import com.marvel.springsecurity.model.Book;
+import com.marvel.springsecurity.model.ImageStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,6 +18,9 @@ public class BookDto {
     private String category;
     private String imageUrl;
     private String imagePublicId;
+    private String imageThumbUrl;
+    private String imageCardUrl;
+    private ImageStatus imageStatus;
     private double averageRating;
     private long noOfRatings;
 
@@ -28,6 +32,11 @@ public class BookDto {
         this.category = book.getCategory();
         this.imageUrl = book.getImageUrl();
         this.imagePublicId = book.getImagePublicId();
+        // Older rows have no variants; fall back to the full image
+        this.imageThumbUrl = book.getImageThumbUrl() != null ? book.getImageThumbUrl() : book.getImageUrl();
+        this.imageCardUrl = book.getImageCardUrl() != null ? book.getImageCardUrl() : book.getImageUrl();
+        // Books created before background uploads existed have no status
+        this.imageStatus = book.getImageStatus() != null ? book.getImageStatus() : ImageStatus.READY;
     }
 
     public BookDto(Book book, AvgAndCountProjection obj){
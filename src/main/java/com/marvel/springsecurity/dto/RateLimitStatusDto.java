@@ -0,0 +1,21 @@
+package com.marvel.springsecurity.dto;
+
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateLimitStatusDto {
+    private boolean enabled;
+    private Map<String, Object> cache;
+    private List<RateLimitMetrics.EndpointCounts> endpoints;
+    private List<RateLimitMetrics.Offender> topOffenders;
+}
@@ -24,6 +24,8 @@ public class UserDto {
     private Instant updatedAt;
     private String imagePublicId;
     private String imageUrl;
+    private String imageThumbUrl;
+    private String imageCardUrl;
 
     private List<String> oauthProviders;
     private boolean hasPassword;
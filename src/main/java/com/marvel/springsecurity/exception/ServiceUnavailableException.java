@@ -0,0 +1,18 @@
+package com.marvel.springsecurity.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message) {
+        this(message, 30);
+    }
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
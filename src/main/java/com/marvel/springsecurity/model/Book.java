@@ -1,6 +1,10 @@
 package com.marvel.springsecurity.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -23,5 +27,14 @@ public class Book {
     private String category;
     private String imageUrl;
     private String imagePublicId;
+    private String imageThumbUrl;
+    private String imageCardUrl;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private ImageStatus imageStatus;
+    // Id of the background cover upload the book is waiting for; only that upload may set the image
+    @JsonIgnore
+    @Column(length = 36)
+    private String imageUploadId;
 
 }
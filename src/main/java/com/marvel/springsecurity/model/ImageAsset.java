@@ -0,0 +1,41 @@
+package com.marvel.springsecurity.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Content-addressed image stored on the image CDN.
+ * The public id is "folder/md5", so identical uploads map to the same row;
+ * refCount tracks how many books/users point at it.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "image_asset")
+public class ImageAsset {
+
+    @Id
+    @Column(length = 100)
+    private String publicId;
+
+    @Column(nullable = false)
+    private String secureUrl;
+
+    // Downscaled variants, stored as "<publicId>_thumb" / "<publicId>_card";
+    // null when the original format could not be resized
+    private String thumbUrl;
+    private String cardUrl;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate(){
+        this.createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,48 @@
+package com.marvel.springsecurity.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Outbox row for an image that has to be removed from the image store.
+ * Written in the same transaction that drops the last reference, and drained
+ * by ImageDeletionWorker outside of any request transaction.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "image_deletion", indexes = @Index(name = "idx_image_deletion_next_attempt", columnList = "nextAttemptAt"))
+public class ImageDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String publicId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private Instant createdAt;
+
+    public ImageDeletion(String publicId) {
+        this.publicId = publicId;
+        this.nextAttemptAt = Instant.now();
+    }
+
+    @PrePersist
+    protected void onCreate(){
+        this.createdAt = Instant.now();
+        if (this.nextAttemptAt == null) this.nextAttemptAt = this.createdAt;
+    }
+}
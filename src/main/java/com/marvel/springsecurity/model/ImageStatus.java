@@ -0,0 +1,10 @@
+package com.marvel.springsecurity.model;
+
+/**
+ * State of a book cover that is uploaded in the background.
+ */
+public enum ImageStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,49 @@
+package com.marvel.springsecurity.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Shared rate limit state of one client on one route, used when rate limits are
+ * enforced across instances (ratelimit.backend=postgres). The bucket is a GCRA
+ * "theoretical arrival time" in epoch millis; a row whose time has passed is a full
+ * bucket and can be deleted.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(RateLimitBucket.Key.class)
+@Table(name = "rate_limit_bucket", indexes = @Index(name = "idx_rate_limit_bucket_tat", columnList = "tatMillis"))
+public class RateLimitBucket {
+
+    @Id
+    @Column(length = 320)
+    private String identifier;
+
+    @Id
+    private int routeId;
+
+    @Column(nullable = false)
+    private long tatMillis;
+
+    // Tokens handed out by the last lease
+    @Column(nullable = false)
+    private int granted;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String identifier;
+        private int routeId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.marvel.springsecurity.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Refresh token that may no longer be used (rotated or logged out), by token id (jti).
+ * Rows are only needed until the token would have expired anyway.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "revoked_token", indexes = @Index(name = "idx_revoked_token_expires_at", columnList = "expiresAt"))
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String tokenId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -1,6 +1,7 @@
 package com.marvel.springsecurity.model;
 
 import com.marvel.springsecurity.dto.UserDto;
+import com.marvel.springsecurity.service.book.ImageService;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -33,6 +34,8 @@ public class Users {
 
     private String imageUrl;
     private String imagePublicId;
+    private String imageThumbUrl;
+    private String imageCardUrl;
 
     @Column(nullable = false, unique = true, length = 100)
     private String email;
@@ -89,6 +92,8 @@ public class Users {
     public void setImageProperties(Map<String, Object> imageProperties){
         this.setImagePublicId((String) imageProperties.get("public_id"));
         this.setImageUrl((String) imageProperties.get("secure_url"));
+        this.setImageThumbUrl((String) imageProperties.get(ImageService.THUMB_URL));
+        this.setImageCardUrl((String) imageProperties.get(ImageService.CARD_URL));
     }
 
     public UserDto toDto() {
@@ -107,6 +112,8 @@ public class Users {
                 this.updatedAt,
                 this.imagePublicId,
                 this.imageUrl,
+                this.imageThumbUrl != null ? this.imageThumbUrl : this.imageUrl,
+                this.imageCardUrl != null ? this.imageCardUrl : this.imageUrl,
                 providers,
                 this.password != null && !this.password.isEmpty()
 
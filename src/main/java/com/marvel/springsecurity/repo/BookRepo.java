@@ -3,12 +3,15 @@ package com.marvel.springsecurity.repo;
 import com.marvel.springsecurity.dto.projections.AuthorAndCountProjection;
 import com.marvel.springsecurity.dto.projections.CategoryAndCountProjection;
 import com.marvel.springsecurity.model.Book;
+import com.marvel.springsecurity.model.ImageStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -40,7 +43,7 @@ public interface BookRepo extends JpaRepository<Book, Integer> {
             SELECT b, COALESCE(AVG(r.rating), 0), COUNT(r.id)
             FROM Book b
             LEFT JOIN Rating r On r.book.bookId = b.bookId
-            GROUP BY b.bookId, b.author, b.category, b.description, b.imagePublicId, b.imageUrl, b.title
+            GROUP BY b.bookId, b.author, b.category, b.description, b.imagePublicId, b.imageUrl, b.imageThumbUrl, b.imageCardUrl, b.imageStatus, b.title
             """)
     Page<Object[]> findBooksWithRatings(Pageable pageable);
 
@@ -59,4 +62,49 @@ public interface BookRepo extends JpaRepository<Book, Integer> {
             ORDER BY counts ASC
           """)
    List<AuthorAndCountProjection> getDistinctAuthorsAndCount();
+
+   // Only touches the image columns so a background upload never overwrites concurrent edits
+   // Only the upload the book is waiting for may set its image; older uploads match no row
+   @Modifying
+   @Transactional
+   @Query("""
+            UPDATE Book b
+            SET b.imageUrl = :imageUrl, b.imagePublicId = :imagePublicId,
+                b.imageThumbUrl = :imageThumbUrl, b.imageCardUrl = :imageCardUrl, b.imageStatus = :imageStatus,
+                b.imageUploadId = null
+            WHERE b.bookId = :bookId AND b.imageUploadId = :uploadId
+          """)
+   int updateImage(@Param("bookId") int bookId,
+                   @Param("uploadId") String uploadId,
+                   @Param("imageUrl") String imageUrl,
+                   @Param("imagePublicId") String imagePublicId,
+                   @Param("imageThumbUrl") String imageThumbUrl,
+                   @Param("imageCardUrl") String imageCardUrl,
+                   @Param("imageStatus") ImageStatus imageStatus);
+
+   @Modifying
+   @Transactional
+   @Query("UPDATE Book b SET b.imageStatus = :imageStatus WHERE b.bookId = :bookId AND b.imageUploadId = :uploadId")
+   int updateImageStatus(@Param("bookId") int bookId, @Param("uploadId") String uploadId,
+                         @Param("imageStatus") ImageStatus imageStatus);
+
+   @Modifying
+   @Transactional
+   @Query("UPDATE Book b SET b.imageStatus = :imageStatus, b.imageUploadId = :uploadId WHERE b.bookId = :bookId")
+   int startImageUpload(@Param("bookId") int bookId, @Param("uploadId") String uploadId,
+                        @Param("imageStatus") ImageStatus imageStatus);
+
+   // Leaves the image columns alone, so a background cover upload finishing meanwhile is kept
+   @Modifying
+   @Transactional
+   @Query("""
+            UPDATE Book b
+            SET b.title = :title, b.author = :author, b.description = :description, b.category = :category
+            WHERE b.bookId = :bookId
+          """)
+   int updateDetails(@Param("bookId") int bookId,
+                     @Param("title") String title,
+                     @Param("author") String author,
+                     @Param("description") String description,
+                     @Param("category") String category);
 }
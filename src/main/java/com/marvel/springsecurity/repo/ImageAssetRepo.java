@@ -0,0 +1,41 @@
+package com.marvel.springsecurity.repo;
+
+import com.marvel.springsecurity.model.ImageAsset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ImageAssetRepo extends JpaRepository<ImageAsset, String> {
+
+    // PostgreSQL upsert: concurrent first uploads of the same content both end up counted
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO image_asset (public_id, secure_url, thumb_url, card_url, ref_count, created_at)
+            VALUES (:publicId, :secureUrl, :thumbUrl, :cardUrl, 1, now())
+            ON CONFLICT (public_id)
+            DO UPDATE SET ref_count = image_asset.ref_count + 1, secure_url = EXCLUDED.secure_url,
+                          thumb_url = EXCLUDED.thumb_url, card_url = EXCLUDED.card_url
+            """, nativeQuery = true)
+    void registerReference(@Param("publicId") String publicId, @Param("secureUrl") String secureUrl,
+                           @Param("thumbUrl") String thumbUrl, @Param("cardUrl") String cardUrl);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageAsset a SET a.refCount = a.refCount + 1 WHERE a.publicId = :publicId")
+    int incrementReferences(@Param("publicId") String publicId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImageAsset a SET a.refCount = a.refCount - 1 WHERE a.publicId = :publicId AND a.refCount > 0")
+    int decrementReferences(@Param("publicId") String publicId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImageAsset a WHERE a.publicId = :publicId AND a.refCount <= 0")
+    int deleteIfUnreferenced(@Param("publicId") String publicId);
+}
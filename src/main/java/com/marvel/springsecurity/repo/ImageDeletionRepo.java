@@ -0,0 +1,33 @@
+package com.marvel.springsecurity.repo;
+
+import com.marvel.springsecurity.model.ImageDeletion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageDeletionRepo extends JpaRepository<ImageDeletion, Long> {
+
+    // FOR UPDATE SKIP LOCKED: rows stay locked while the worker deletes them from the store
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<ImageDeletion> findByNextAttemptAtLessThanEqualOrderByIdAsc(Instant now, Pageable pageable);
+
+    // Waits for a worker holding any of these rows, so it returns only once that delete is done
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImageDeletion d WHERE d.publicId IN :publicIds")
+    int deleteByPublicIdIn(@Param("publicIds") Collection<String> publicIds);
+}
@@ -0,0 +1,57 @@
+package com.marvel.springsecurity.repo;
+
+import com.marvel.springsecurity.model.RateLimitBucket;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface RateLimitBucketRepo extends JpaRepository<RateLimitBucket, RateLimitBucket.Key> {
+
+    interface LeaseResult {
+        int getGranted();
+        long getTatMillis();
+    }
+
+    // PostgreSQL upsert: takes up to :requested tokens from the bucket in one atomic
+    // statement (GCRA: each token moves the arrival time one interval further, and
+    // the arrival time may not run more than :burst ahead of now). SET expressions
+    // read the old row, RETURNING the new one. Times out after a second (JDBC timeouts are
+    // whole seconds) so a struggling database cannot hold request threads.
+    @Transactional
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = "1000"))
+    @Query(value = """
+            INSERT INTO rate_limit_bucket (identifier, route_id, tat_millis, granted)
+            VALUES (:identifier, :routeId, :now + :firstGrant * :interval, :firstGrant)
+            ON CONFLICT (identifier, route_id)
+            DO UPDATE SET
+                granted = GREATEST(0, LEAST(:requested,
+                        (:burst - GREATEST(rate_limit_bucket.tat_millis - :now, 0)) / :interval)),
+                tat_millis = GREATEST(rate_limit_bucket.tat_millis, :now) + :interval * GREATEST(0, LEAST(:requested,
+                        (:burst - GREATEST(rate_limit_bucket.tat_millis - :now, 0)) / :interval))
+            RETURNING granted, tat_millis AS "tatMillis"
+            """, nativeQuery = true)
+    LeaseResult lease(@Param("identifier") String identifier, @Param("routeId") int routeId,
+                      @Param("requested") int requested, @Param("firstGrant") int firstGrant,
+                      @Param("interval") long intervalMillis, @Param("burst") long burstMillis,
+                      @Param("now") long nowMillis);
+
+    List<RateLimitBucket> findByIdentifier(String identifier);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RateLimitBucket b WHERE b.identifier = :identifier")
+    int deleteByIdentifier(@Param("identifier") String identifier);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RateLimitBucket b WHERE b.tatMillis <= :now")
+    int deleteRefilled(@Param("now") long nowMillis);
+}
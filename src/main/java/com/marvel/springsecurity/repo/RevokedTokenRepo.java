@@ -0,0 +1,37 @@
+package com.marvel.springsecurity.repo;
+
+import com.marvel.springsecurity.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepo extends JpaRepository<RevokedToken, String> {
+
+    @Query("SELECT r.tokenId FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveTokenIds(@Param("now") Instant now);
+
+    /**
+     * Record a revocation unless the token is already revoked.
+     * Returns 1 if this call revoked the token, 0 if it was revoked before.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO revoked_token (token_id, expires_at)
+            VALUES (:tokenId, :expiresAt)
+            ON CONFLICT (token_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("tokenId") String tokenId, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,7 +1,6 @@
 package com.marvel.springsecurity.service.book;
 
 
-import com.cloudinary.Cloudinary;
 import com.marvel.springsecurity.dto.BookDto;
 import com.marvel.springsecurity.dto.CommentsDto;
 import com.marvel.springsecurity.dto.projections.AuthorAndCountProjection;
@@ -10,6 +9,7 @@ import com.marvel.springsecurity.dto.projections.CategoryAndCountProjection;
 import com.marvel.springsecurity.exception.ResourceNotFoundException;
 import com.marvel.springsecurity.model.Book;
 import com.marvel.springsecurity.model.Comment;
+import com.marvel.springsecurity.model.ImageStatus;
 import com.marvel.springsecurity.model.Rating;
 import com.marvel.springsecurity.model.Users;
 import com.marvel.springsecurity.repo.BookRepo;
@@ -38,12 +38,15 @@ public class BookService {
     private final RatingRepo ratingRepo;
     private final CommentRepo commentRepo;
     private final ImageService imageService;
+    private final CoverUploadService coverUploadService;
 
-    public BookService(BookRepo bookRepo, RatingRepo ratingRepo, CommentRepo commentRepo, Cloudinary cloudinary, ImageService imageService) {
+    public BookService(BookRepo bookRepo, RatingRepo ratingRepo, CommentRepo commentRepo,
+            ImageService imageService, CoverUploadService coverUploadService) {
         this.bookRepo = bookRepo;
         this.ratingRepo = ratingRepo;
         this.commentRepo = commentRepo;
         this.imageService = imageService;
+        this.coverUploadService = coverUploadService;
     }
 
     public void addBook(Book book, MultipartFile image) throws IOException {
@@ -51,9 +54,32 @@ public class BookService {
         Map<String,Object> cloudinary = imageService.uploadImage(image, "books");
         book.setImageUrl((String)cloudinary.get("secure_url"));
         book.setImagePublicId((String)cloudinary.get("public_id"));
+        book.setImageThumbUrl((String)cloudinary.get(ImageService.THUMB_URL));
+        book.setImageCardUrl((String)cloudinary.get(ImageService.CARD_URL));
+        book.setImageStatus(ImageStatus.READY);
         bookRepo.save(book);
     }
 
+    /**
+     * Saves the book right away with a PENDING cover and uploads the image in the background.
+     * The image is read here because the multipart file is gone once the request ends.
+     */
+    public Book addBookAsync(Book book, MultipartFile image) throws IOException {
+        ImageService.ImagePayload payload = imageService.readImage(image);
+        coverUploadService.submit(payload, uploadId -> {
+            book.setImageStatus(ImageStatus.PENDING);
+            book.setImageUploadId(uploadId);
+            return bookRepo.save(book).getBookId();
+        });
+        return book;
+    }
+
+    public ImageStatus getImageStatus(int bookId) {
+        return bookRepo.findById(bookId)
+                .map(b -> b.getImageStatus() != null ? b.getImageStatus() : ImageStatus.READY)
+                .orElseThrow(() -> new ResourceNotFoundException("Book Not Found with id : " + bookId));
+    }
+
     public BookDto getBookById(int bookId) {
         Book book = bookRepo.findById(bookId).orElse(null);
         if(book == null) return null;
@@ -78,10 +104,7 @@ public class BookService {
             return false;
         }
         Book existingBook = existing.get();
-        existingBook.setTitle(book.getTitle());
-        existingBook.setAuthor(book.getAuthor());
-        existingBook.setDescription(book.getDescription());
-        existingBook.setCategory(book.getCategory());
+        copyDetails(book, existingBook);
 
         if (image != null && !image.isEmpty()) {
             // Get the old public ID before it's overwritten
@@ -94,29 +117,66 @@ public class BookService {
             // Update the book with the new image details
             existingBook.setImageUrl((String)uploadResult.get("secure_url"));
             existingBook.setImagePublicId(newPublicId);
+            existingBook.setImageThumbUrl((String)uploadResult.get(ImageService.THUMB_URL));
+            existingBook.setImageCardUrl((String)uploadResult.get(ImageService.CARD_URL));
+            existingBook.setImageStatus(ImageStatus.READY);
+            // Supersedes any background upload still running for this book
+            existingBook.setImageUploadId(null);
 
             // Save the book with the new image details
             bookRepo.save(existingBook);
 
-            // Delete the old image from Cloudinary ONLY IF it's different from the new one
-            if (oldPublicId != null && !oldPublicId.equals(newPublicId)) {
-                imageService.deleteImage(oldPublicId);
-            }
+            // Release the old image; it is only removed from the image store once unreferenced
+            imageService.releaseReplacedImage(oldPublicId, uploadResult);
         } else {
             // If no new image, just save the other updated fields
-            bookRepo.save(existingBook);
+            updateDetails(bookId, existingBook);
         }
         return true;
     }
 
+    /**
+     * Same as {@link #updateBook} but a new cover is uploaded in the background.
+     * The current cover stays in place until the upload completes. Only the detail columns
+     * are written here, so a background upload finishing meanwhile is not overwritten.
+     */
+    public boolean updateBookAsync(int bookId, Book book, MultipartFile image) throws IOException {
+        if (!bookRepo.existsById(bookId)) {
+            return false;
+        }
+
+        if (image != null && !image.isEmpty()) {
+            ImageService.ImagePayload payload = imageService.readImage(image);
+            coverUploadService.submit(payload, uploadId -> {
+                updateDetails(bookId, book);
+                bookRepo.startImageUpload(bookId, uploadId, ImageStatus.PENDING);
+                return bookId;
+            });
+        } else {
+            updateDetails(bookId, book);
+        }
+        return true;
+    }
+
+    private void updateDetails(int bookId, Book source) {
+        bookRepo.updateDetails(bookId, source.getTitle(), source.getAuthor(),
+                source.getDescription(), source.getCategory());
+    }
+
+    private void copyDetails(Book source, Book target) {
+        target.setTitle(source.getTitle());
+        target.setAuthor(source.getAuthor());
+        target.setDescription(source.getDescription());
+        target.setCategory(source.getCategory());
+    }
+
     @Transactional
     public void deleteBook(int id) throws IOException {
         commentRepo.deleteAllByBook_BookId(id);
         ratingRepo.deleteAllByBook_BookId(id);
         String public_id = bookRepo.findById(id).map(Book::getImagePublicId).orElse(null);
-        if(public_id != null && !public_id.isEmpty()){
-            imageService.deleteImage(public_id);
-        }
+        // Only queues the remote delete (outbox row in this transaction), no CDN call here
+        imageService.deleteImage(public_id);
         bookRepo.deleteById(id);
 
     }
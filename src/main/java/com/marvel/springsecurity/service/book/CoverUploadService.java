@@ -0,0 +1,173 @@
+package com.marvel.springsecurity.service.book;
+
+import com.marvel.springsecurity.exception.ServiceUnavailableException;
+import com.marvel.springsecurity.model.Book;
+import com.marvel.springsecurity.model.ImageStatus;
+import com.marvel.springsecurity.repo.BookRepo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Uploads book covers in the background so request threads never wait on the image CDN.
+ * The book row is saved as PENDING first; once the upload finishes it is switched to
+ * READY with the new image, or FAILED after the last retry.
+ * Uploads run on virtual threads, with a semaphore bounding how many hit the image store at once
+ * and a bounded queue behind it: when the queue is full new uploads are rejected with 503.
+ * <p>
+ * Every upload gets an id that is stored on the book. Only the upload the book is waiting
+ * for may set its image, so an older upload finishing last (or one overtaken by a
+ * synchronous update) gives its image back instead of overwriting the newer cover.
+ */
+@Slf4j
+@Service
+public class CoverUploadService {
+
+    private final ImageService imageService;
+    private final BookRepo bookRepo;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    // Running plus queued uploads
+    private final Semaphore slots;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    // Upload id -> book id of every upload not finished yet, marked FAILED on shutdown
+    private final Map<String, Integer> pending = new ConcurrentHashMap<>();
+
+    public CoverUploadService(ImageService imageService, BookRepo bookRepo,
+            @Value("${image.upload.async.max-concurrent:4}") int maxConcurrent,
+            @Value("${image.upload.async.queue-capacity:100}") int queueCapacity,
+            @Value("${image.upload.async.max-attempts:3}") int maxAttempts,
+            @Value("${image.upload.async.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.imageService = imageService;
+        this.bookRepo = bookRepo;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.permits = new Semaphore(maxConcurrent);
+        this.slots = new Semaphore(maxConcurrent + Math.max(0, queueCapacity));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    /**
+     * Queue a cover upload. A place in the queue is taken before anything is saved, so a
+     * full queue fails the request with 503 and leaves the book untouched.
+     *
+     * @param markPending saves the book as PENDING with the given upload id and returns its id
+     * @return the book id
+     */
+    int submit(ImageService.ImagePayload payload, ToIntFunction<String> markPending) {
+        if (!slots.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many cover uploads in progress, please retry", 5);
+        }
+        String uploadId = UUID.randomUUID().toString();
+        int bookId;
+        try {
+            bookId = markPending.applyAsInt(uploadId);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+
+        pending.put(uploadId, bookId);
+        try {
+            executor.execute(() -> run(bookId, uploadId, payload));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            pending.remove(uploadId);
+            slots.release();
+            bookRepo.updateImageStatus(bookId, uploadId, ImageStatus.FAILED);
+            throw new ServiceUnavailableException("Server is shutting down, please retry", 5);
+        }
+        return bookId;
+    }
+
+    private void run(int bookId, String uploadId, ImageService.ImagePayload payload) {
+        try {
+            permits.acquire();
+            try {
+                Map<String, Object> uploadResult = uploadWithRetries(bookId, payload);
+                if (uploadResult == null) {
+                    bookRepo.updateImageStatus(bookId, uploadId, ImageStatus.FAILED);
+                    return;
+                }
+                complete(bookId, uploadId, uploadResult);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            bookRepo.updateImageStatus(bookId, uploadId, ImageStatus.FAILED);
+        } catch (Exception e) {
+            log.error("Cover upload for book {} failed", bookId, e);
+            bookRepo.updateImageStatus(bookId, uploadId, ImageStatus.FAILED);
+        } finally {
+            pending.remove(uploadId);
+            slots.release();
+        }
+    }
+
+    /**
+     * Retries I/O errors and an unavailable image store (timeouts, 5xx, open breaker, full
+     * bulkhead); anything else, such as an image that is too large, fails right away.
+     *
+     * @return the upload result, or null once every attempt failed
+     */
+    private Map<String, Object> uploadWithRetries(int bookId, ImageService.ImagePayload payload)
+            throws InterruptedException {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return imageService.uploadImage(payload, "books");
+            } catch (IOException | ServiceUnavailableException e) {
+                log.warn("Cover upload for book {} failed (attempt {}/{}): {}",
+                        bookId, attempt, maxAttempts, e.getMessage());
+                if (attempt < maxAttempts) {
+                    // Exponential backoff: 1x, 2x, 4x ...
+                    TimeUnit.MILLISECONDS.sleep(retryBackoffMillis << (attempt - 1));
+                }
+            }
+        }
+        return null;
+    }
+
+    private void complete(int bookId, String uploadId, Map<String, Object> uploadResult) {
+        String oldPublicId = bookRepo.findById(bookId).map(Book::getImagePublicId).orElse(null);
+        int updated = bookRepo.updateImage(bookId, uploadId,
+                (String) uploadResult.get("secure_url"),
+                (String) uploadResult.get("public_id"),
+                (String) uploadResult.get(ImageService.THUMB_URL),
+                (String) uploadResult.get(ImageService.CARD_URL),
+                ImageStatus.READY);
+
+        if (updated == 0) {
+            // Book was deleted or given a newer cover while the upload was running; give the reference back
+            imageService.deleteImage((String) uploadResult.get("public_id"));
+            return;
+        }
+        imageService.releaseReplacedImage(oldPublicId, uploadResult);
+    }
+
+    /**
+     * Interrupts queued and backing-off uploads; whatever has not finished shortly after
+     * is marked FAILED so the books do not stay PENDING across the restart.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("{} cover uploads still running at shutdown", pending.size());
+        }
+        pending.forEach((uploadId, bookId) -> bookRepo.updateImageStatus(bookId, uploadId, ImageStatus.FAILED));
+    }
+}
@@ -0,0 +1,102 @@
+package com.marvel.springsecurity.service.book;
+
+import com.marvel.springsecurity.model.ImageDeletion;
+import com.marvel.springsecurity.repo.ImageDeletionRepo;
+import com.marvel.springsecurity.service.book.store.ImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Drains the image deletion outbox in batches, outside of request transactions.
+ * Failed batches are retried with exponential backoff (capped), so assets orphaned
+ * by a store outage are eventually cleaned up.
+ * <p>
+ * Each batch is handled in one transaction that keeps its rows locked during the store
+ * call. An upload of the same content cancels the pending rows first (see ImageService),
+ * which either removes them before the worker sees them or waits until the worker is done,
+ * so a deletion never runs after the files were uploaded again.
+ */
+@Slf4j
+@Component
+public class ImageDeletionWorker {
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(6);
+
+    private final ImageDeletionRepo imageDeletionRepo;
+    private final ImageStore imageStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration baseBackoff;
+
+    public ImageDeletionWorker(ImageDeletionRepo imageDeletionRepo, ImageStore imageStore,
+            PlatformTransactionManager transactionManager,
+            @Value("${image.deletion.batch-size:100}") int batchSize,
+            @Value("${image.deletion.retry-backoff-seconds:60}") long baseBackoffSeconds) {
+        this.imageDeletionRepo = imageDeletionRepo;
+        this.imageStore = imageStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Cloudinary's bulk delete accepts at most 100 public ids per call
+        this.batchSize = Math.min(Math.max(1, batchSize), 100);
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${image.deletion.poll-interval-ms:30000}")
+    public void drain() {
+        boolean more;
+        do {
+            more = Boolean.TRUE.equals(transactionTemplate.execute(status -> drainBatch()));
+        } while (more);
+    }
+
+    /**
+     * @return true if a full batch was deleted and the outbox should be polled again
+     */
+    private boolean drainBatch() {
+        List<ImageDeletion> batch = imageDeletionRepo.findByNextAttemptAtLessThanEqualOrderByIdAsc(
+                Instant.now(), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return false;
+        }
+        return process(batch) && batch.size() == batchSize;
+    }
+
+    /**
+     * @return true if the batch was deleted, false if it was rescheduled
+     */
+    private boolean process(List<ImageDeletion> batch) {
+        List<String> publicIds = batch.stream().map(ImageDeletion::getPublicId).distinct().toList();
+        try {
+            imageStore.deleteAll(publicIds);
+            imageDeletionRepo.deleteAllInBatch(batch);
+            log.debug("Deleted {} images from the image store", publicIds.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Deleting {} images failed, will retry: {}", publicIds.size(), e.getMessage());
+            Instant now = Instant.now();
+            for (ImageDeletion deletion : batch) {
+                int attempts = deletion.getAttempts() + 1;
+                deletion.setAttempts(attempts);
+                deletion.setNextAttemptAt(now.plus(backoff(attempts)));
+                String error = String.valueOf(e.getMessage());
+                deletion.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+            }
+            imageDeletionRepo.saveAll(batch);
+            return false;
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        // 1x, 2x, 4x ... of the base delay, capped
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
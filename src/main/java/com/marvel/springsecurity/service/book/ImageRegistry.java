@@ -0,0 +1,102 @@
+package com.marvel.springsecurity.service.book;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marvel.springsecurity.model.ImageAsset;
+import com.marvel.springsecurity.repo.ImageAssetRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Registry of content-addressed images already stored on the CDN.
+ * Lets uploads of known content skip the remote upload, and reference counts
+ * make sure a shared asset is only deleted once nothing points at it anymore.
+ * The in-memory cache only answers "do we know this public id"; reference
+ * counts always live in the image_asset table.
+ */
+@Slf4j
+@Service
+public class ImageRegistry {
+
+    private final ImageAssetRepo imageAssetRepo;
+    private final Cache<String, ImageAsset> assets;
+
+    public ImageRegistry(ImageAssetRepo imageAssetRepo) {
+        this.imageAssetRepo = imageAssetRepo;
+        this.assets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .build();
+    }
+
+    /**
+     * Take a reference on an already stored image.
+     *
+     * @return the stored image (URLs only, the cached ref count is not maintained),
+     *         or empty if it has to be uploaded
+     */
+    public Optional<ImageAsset> acquire(String publicId) {
+        ImageAsset asset = assets.getIfPresent(publicId);
+        if (asset == null) {
+            asset = imageAssetRepo.findById(publicId).orElse(null);
+            if (asset == null) {
+                return Optional.empty();
+            }
+        }
+
+        // Row may have been removed by a concurrent release; treat as unknown then
+        if (imageAssetRepo.incrementReferences(publicId) == 0) {
+            assets.invalidate(publicId);
+            return Optional.empty();
+        }
+        assets.put(publicId, asset);
+        return Optional.of(asset);
+    }
+
+    /**
+     * Record a freshly uploaded image with one reference.
+     */
+    public void register(String publicId, String secureUrl, String thumbUrl, String cardUrl) {
+        imageAssetRepo.registerReference(publicId, secureUrl, thumbUrl, cardUrl);
+
+        ImageAsset asset = new ImageAsset();
+        asset.setPublicId(publicId);
+        asset.setSecureUrl(secureUrl);
+        asset.setThumbUrl(thumbUrl);
+        asset.setCardUrl(cardUrl);
+        assets.put(publicId, asset);
+    }
+
+    /**
+     * Drop one reference on an image.
+     *
+     * @return the public ids (image plus its variants) to delete from the CDN, empty while
+     *         the image is still referenced. Images uploaded before the registry existed
+     *         are not tracked and are always returned, matching the previous behaviour.
+     */
+    public List<String> release(String publicId) {
+        if (imageAssetRepo.decrementReferences(publicId) == 0) {
+            log.debug("Image {} is not tracked by the registry", publicId);
+            return List.of(publicId);
+        }
+
+        ImageAsset asset = imageAssetRepo.findById(publicId).orElse(null);
+        if (imageAssetRepo.deleteIfUnreferenced(publicId) == 0) {
+            return List.of();
+        }
+        assets.invalidate(publicId);
+
+        List<String> publicIds = new ArrayList<>();
+        publicIds.add(publicId);
+        if (asset != null && asset.getThumbUrl() != null) {
+            publicIds.add(publicId + ImageResizer.ImageVariant.THUMB.getSuffix());
+        }
+        if (asset != null && asset.getCardUrl() != null) {
+            publicIds.add(publicId + ImageResizer.ImageVariant.CARD.getSuffix());
+        }
+        return publicIds;
+    }
+}
@@ -0,0 +1,267 @@
+package com.marvel.springsecurity.service.book;
+
+import com.marvel.springsecurity.exception.BadRequestException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Downscales uploaded images into the fixed set of variants served to clients.
+ * Pure ImageIO: the source is decoded with subsampling so that at most roughly
+ * FULL-sized pixels are ever held in memory, and images above the pixel budget
+ * are rejected before decoding. The EXIF orientation of JPEGs is applied before
+ * scaling, since the re-encoded variants carry no metadata.
+ */
+@Slf4j
+@Component
+public class ImageResizer {
+
+    @Getter
+    public enum ImageVariant {
+        THUMB(200, "_thumb"),
+        CARD(480, "_card"),
+        FULL(1600, "");
+
+        private final int maxEdge;
+        private final String suffix;
+
+        ImageVariant(int maxEdge, String suffix) {
+            this.maxEdge = maxEdge;
+            this.suffix = suffix;
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int APP1_MARKER = 0xE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final long maxPixels;
+
+    public ImageResizer(@Value("${image.max-pixels:40000000}") long maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Produce JPEG bytes for every variant.
+     *
+     * @return the variants, or null if ImageIO cannot decode the format (e.g. WebP/HEIC);
+     *         callers then store the original bytes as-is
+     * @throws BadRequestException if the image is larger than the configured pixel budget
+     */
+    public Map<ImageVariant, byte[]> resize(byte[] source) throws IOException {
+        BufferedImage decoded = decode(source);
+        if (decoded == null) {
+            return null;
+        }
+
+        Map<ImageVariant, byte[]> variants = new EnumMap<>(ImageVariant.class);
+        // Largest first so each smaller variant is scaled from the previous one
+        BufferedImage current = decoded;
+        for (ImageVariant variant : new ImageVariant[]{ImageVariant.FULL, ImageVariant.CARD, ImageVariant.THUMB}) {
+            current = scaleToFit(current, variant.getMaxEdge());
+            variants.put(variant, encodeJpeg(current));
+        }
+        return variants;
+    }
+
+    private BufferedImage decode(byte[] source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.debug("No ImageIO reader for uploaded image, storing original");
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // Metadata is read for the EXIF orientation only
+                reader.setInput(input, true, false);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new BadRequestException("Image is too large (" + width + "x" + height + ")");
+                }
+
+                // Integer subsampling keeps the decoded raster close to the FULL variant size
+                int subsampling = Math.max(1, Math.max(width, height) / ImageVariant.FULL.getMaxEdge());
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return orient(image, readOrientation(reader));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * EXIF orientation (1-8) of a JPEG, or 1 when there is none or it cannot be read.
+     */
+    private int readOrientation(ImageReader reader) {
+        try {
+            IIOMetadata metadata = reader.getImageMetadata(0);
+            if (metadata == null || !JPEG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+                return 1;
+            }
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT);
+            NodeList markers = root.getElementsByTagName("unknown");
+            for (int i = 0; i < markers.getLength(); i++) {
+                IIOMetadataNode marker = (IIOMetadataNode) markers.item(i);
+                if (Integer.toString(APP1_MARKER).equals(marker.getAttribute("MarkerTag"))
+                        && marker.getUserObject() instanceof byte[] data) {
+                    int orientation = exifOrientation(data);
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not read image orientation, keeping it as stored: {}", e.getMessage());
+        }
+        return 1;
+    }
+
+    /**
+     * Orientation tag from the first IFD of an APP1 "Exif" segment, or 0 if absent.
+     */
+    static int exifOrientation(byte[] app1) {
+        byte[] header = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+        if (app1.length < header.length + 8
+                || !Arrays.equals(app1, 0, header.length, header, 0, header.length)) {
+            return 0;
+        }
+        // TIFF structure: byte order, magic 42, offset of the first IFD; offsets are from its start
+        ByteBuffer tiff = ByteBuffer.wrap(app1, header.length, app1.length - header.length).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.limit()) {
+            return 0;
+        }
+        int entries = Short.toUnsignedInt(tiff.getShort(ifd));
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                return 0;
+            }
+            if (Short.toUnsignedInt(tiff.getShort(entry)) == ORIENTATION_TAG) {
+                // SHORT value, stored left-aligned in the 4 byte value field
+                int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Rotate and/or mirror the decoded image so it displays upright without its EXIF tag.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        int targetWidth = swap ? h : w;
+        BufferedImage target = new BufferedImage(targetWidth, swap ? w : h, BufferedImage.TYPE_INT_ARGB);
+        int[] source = image.getRGB(0, 0, w, h, null, 0, w);
+        int[] pixels = new int[source.length];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int tx, ty;
+                switch (orientation) {
+                    case 2 -> { tx = w - 1 - x; ty = y; }          // mirrored
+                    case 3 -> { tx = w - 1 - x; ty = h - 1 - y; }  // rotated 180
+                    case 4 -> { tx = x; ty = h - 1 - y; }          // flipped
+                    case 5 -> { tx = y; ty = x; }                  // transposed
+                    case 6 -> { tx = h - 1 - y; ty = x; }          // rotate 90 clockwise
+                    case 7 -> { tx = h - 1 - y; ty = w - 1 - x; }  // transversed
+                    default -> { tx = y; ty = w - 1 - x; }         // 8: rotate 90 counter-clockwise
+                }
+                pixels[ty * targetWidth + tx] = source[y * w + x];
+            }
+        }
+        target.setRGB(0, 0, targetWidth, target.getHeight(), pixels, 0, targetWidth);
+        return target;
+    }
+
+    /**
+     * Scale down (never up) so the longest edge fits maxEdge, halving repeatedly
+     * for better quality than a single bilinear pass.
+     */
+    private BufferedImage scaleToFit(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = image;
+        int w = width;
+        int h = height;
+        do {
+            w = Math.max(targetWidth, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            current = draw(current, w, h);
+        } while (w != targetWidth || h != targetHeight);
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        // TYPE_INT_RGB with a white background: JPEG has no alpha channel
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
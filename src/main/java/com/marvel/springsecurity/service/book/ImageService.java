@@ -1,90 +1,186 @@
 package com.marvel.springsecurity.service.book;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import com.marvel.springsecurity.model.ImageAsset;
+import com.marvel.springsecurity.model.ImageDeletion;
+import com.marvel.springsecurity.repo.ImageDeletionRepo;
+import com.marvel.springsecurity.service.book.ImageResizer.ImageVariant;
+import com.marvel.springsecurity.service.book.store.ImageStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class ImageService {
     private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
 
-    private final Cloudinary cloudinary;
+    // Set on upload results that reused an already stored image
+    public static final String REUSED = "reused";
+    // Variant URLs on upload results (null when the format could not be resized)
+    public static final String THUMB_URL = "thumb_url";
+    public static final String CARD_URL = "card_url";
 
-    public ImageService(Cloudinary cloudinary) {
-        this.cloudinary = cloudinary;
+    private final ImageStore imageStore;
+    private final ImageRegistry imageRegistry;
+    private final ImageResizer imageResizer;
+    private final ImageDeletionRepo imageDeletionRepo;
+
+    public ImageService(ImageStore imageStore, ImageRegistry imageRegistry, ImageResizer imageResizer,
+            ImageDeletionRepo imageDeletionRepo) {
+        this.imageStore = imageStore;
+        this.imageRegistry = imageRegistry;
+        this.imageResizer = imageResizer;
+        this.imageDeletionRepo = imageDeletionRepo;
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public Map<String, Object> uploadImage(MultipartFile image, String folder) throws IOException {
-        // Creating a temp file to hold data in disk rather than Memory
+        // Single pass over the upload: the digest is computed while the bytes are
+        // buffered, and the same buffer is handed to the image store (no temp file).
+        return uploadImage(readImage(image), folder);
+    }
 
-        File tempFile = null;
-        try {
-            // temp file will be look like "upload_408383443_image.png"
-            // prefix_randomValue_imageName.png
-            tempFile = File.createTempFile("upload_", "_" + image.getOriginalFilename());
-            image.transferTo(tempFile);
+    /**
+     * Upload an image that was already read from the request, e.g. by a background upload.
+     */
+    Map<String, Object> uploadImage(ImagePayload payload, String folder) throws IOException {
+        // Public id is derived from the original bytes so dedup still works on the source content
+        String publicId = folder + "/" + payload.hash();
 
-            String fileHash = generateFileHash(tempFile);
+        // Same content was uploaded before: take a reference instead of re-uploading
+        Optional<ImageAsset> existing = imageRegistry.acquire(publicId);
+        if (existing.isPresent()) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("public_id", publicId);
+            result.put("secure_url", existing.get().getSecureUrl());
+            result.put(THUMB_URL, existing.get().getThumbUrl());
+            result.put(CARD_URL, existing.get().getCardUrl());
+            result.put(REUSED, true);
+            return result;
+        }
 
-            Map<String, Object> property = ObjectUtils.asMap(
-                    "public_id", folder + "/" + fileHash,
-                    "overwrite", true,
-                    "resource_type", "image");
+        // The same content may have been released and still be waiting in the deletion
+        // outbox; cancel that before uploading, or the worker would delete the new files
+        imageDeletionRepo.deleteByPublicIdIn(List.of(publicId,
+                publicId + ImageVariant.THUMB.getSuffix(), publicId + ImageVariant.CARD.getSuffix()));
 
-            return cloudinary.uploader().upload(tempFile, property);
-        } catch (NoSuchAlgorithmException e) {
-            throw new IOException("Could not generate file hash", e);
-        } finally {
-            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
-                logger.warn("Failed to delete temp file: {}", tempFile.getAbsolutePath());
-            }
+        Map<ImageVariant, byte[]> variants = imageResizer.resize(payload.bytes());
+        Map<String, Object> result = new HashMap<>();
+        result.put("public_id", publicId);
+        if (variants == null) {
+            // Format ImageIO cannot decode: store the original as before, without variants
+            result.put("secure_url", imageStore.upload(payload.bytes(), publicId));
+        } else {
+            uploadVariants(variants, publicId, result);
         }
+
+        imageRegistry.register(publicId, (String) result.get("secure_url"),
+                (String) result.get(THUMB_URL), (String) result.get(CARD_URL));
+        result.put(REUSED, false);
+        return result;
     }
 
-    public void deleteImage(String publicId) throws IOException {
+    /**
+     * Upload every variant. If one fails, the ones already stored are not registered
+     * anywhere, so their removal is queued in the deletion outbox before rethrowing;
+     * a retry of the same content cancels it again.
+     */
+    private void uploadVariants(Map<ImageVariant, byte[]> variants, String publicId, Map<String, Object> result)
+            throws IOException {
+        List<String> uploaded = new ArrayList<>(3);
         try {
-            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-        } catch (IOException e) {
-            logger.error("Failed to delete image with Public_id {}", publicId, e);
+            result.put("secure_url", imageStore.upload(variants.get(ImageVariant.FULL), publicId));
+            uploaded.add(publicId);
+            String thumbId = publicId + ImageVariant.THUMB.getSuffix();
+            result.put(THUMB_URL, imageStore.upload(variants.get(ImageVariant.THUMB), thumbId));
+            uploaded.add(thumbId);
+            String cardId = publicId + ImageVariant.CARD.getSuffix();
+            result.put(CARD_URL, imageStore.upload(variants.get(ImageVariant.CARD), cardId));
+        } catch (IOException | RuntimeException e) {
+            if (!uploaded.isEmpty()) {
+                logger.warn("Upload of {} failed after {} of its variants were stored, queueing them for deletion",
+                        publicId, uploaded.size());
+                try {
+                    imageDeletionRepo.saveAll(uploaded.stream().map(ImageDeletion::new).toList());
+                } catch (RuntimeException cleanupFailure) {
+                    e.addSuppressed(cleanupFailure);
+                }
+            }
             throw e;
         }
     }
 
     /**
-     * Generates an MD5 hash for a given file by reading it in chunks.
-     * This is memory-efficient for large files.
-     * 
-     * @param file The file to hash.
-     * @return A hexadecimal string representation of the hash.
+     * Release the image a row pointed at before it was given a new upload.
+     * Re-uploading the content the row already had took a second reference on
+     * the same asset, so that extra reference is dropped as well.
      */
-    private String generateFileHash(File file) throws NoSuchAlgorithmException, IOException {
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        // Read the file in chunks to avoid loading it all into memory
-        try (InputStream is = new FileInputStream(file)) {
-            byte[] buffer = new byte[8192]; // 8KB buffer chunk
-            int bytesRead;
-            while ((bytesRead = is.read(buffer)) != -1) {
-                md.update(buffer, 0, bytesRead);
-            }
+    public void releaseReplacedImage(String oldPublicId, Map<String, Object> uploadResult) {
+        if (oldPublicId == null || oldPublicId.isEmpty()) {
+            return;
+        }
+        boolean samePublicId = oldPublicId.equals(uploadResult.get("public_id"));
+        if (!samePublicId || Boolean.TRUE.equals(uploadResult.get(REUSED))) {
+            deleteImage(oldPublicId);
         }
+    }
 
-        byte[] digest = md.digest();
-        StringBuilder sb = new StringBuilder();
-        for (byte b : digest) {
-            sb.append(String.format("%02x", b));
+    /**
+     * Drop a reference to an image. Once nothing uses it, its removal from the image
+     * store is queued in the deletion outbox, as part of the caller's transaction if
+     * there is one; ImageDeletionWorker performs the actual remote delete.
+     */
+    public void deleteImage(String publicId) {
+        if (publicId == null || publicId.isEmpty()) {
+            return;
+        }
+        List<String> unreferenced = imageRegistry.release(publicId);
+        if (unreferenced.isEmpty()) {
+            logger.debug("Image {} is still referenced, keeping it", publicId);
+            return;
+        }
+        imageDeletionRepo.saveAll(unreferenced.stream().map(ImageDeletion::new).toList());
+    }
+
+    /**
+     * Reads the uploaded image into memory, computing its MD5 hash as the bytes flow.
+     * Uploads are capped by spring.servlet.multipart.max-file-size (10MB), so the
+     * buffer is bounded and pre-sized from the declared file size.
+     *
+     * @param image The uploaded file.
+     * @return The image bytes together with their hexadecimal MD5 hash.
+     */
+    ImagePayload readImage(MultipartFile image) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Could not generate file hash", e);
+        }
+
+        int expectedSize = (int) Math.min(Math.max(image.getSize(), 0), Integer.MAX_VALUE - 8);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(expectedSize > 0 ? expectedSize : 8192);
+        try (InputStream is = new DigestInputStream(image.getInputStream(), md)) {
+            is.transferTo(buffer);
         }
-        return sb.toString();
+        return new ImagePayload(buffer.toByteArray(), HexFormat.of().formatHex(md.digest()));
+    }
+
+    /**
+     * Image bytes read from an upload along with their content hash.
+     */
+    record ImagePayload(byte[] bytes, String hash) {
     }
 }
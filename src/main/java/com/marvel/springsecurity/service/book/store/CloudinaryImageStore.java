@@ -0,0 +1,106 @@
+package com.marvel.springsecurity.service.book.store;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.utils.ObjectUtils;
+import com.marvel.springsecurity.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.functions.CheckedSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cloudinary-backed image store.
+ * Every call goes through a bulkhead (caps concurrent CDN calls so a slow CDN cannot
+ * take all Tomcat threads) and a circuit breaker (fails fast while the CDN is erroring
+ * or slow). Both are configured under resilience4j.*.instances.cloudinary and their
+ * metrics are published through Micrometer.
+ * Calls time out after cloudinary.connect-timeout (connecting) and cloudinary.timeout
+ * (waiting for the response): uploads and destroys use TimeoutUploaderStrategy, Admin
+ * API calls pass the timeouts as per-call options, the only place the SDK reads them.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "image.store", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStore implements ImageStore {
+
+    private static final String INSTANCE = "cloudinary";
+
+    private final Cloudinary cloudinary;
+    private final Uploader uploader;
+    private final Map<?, ?> adminOptions;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public CloudinaryImageStore(Cloudinary cloudinary, BulkheadRegistry bulkheadRegistry,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${cloudinary.timeout:20}") int timeoutSeconds,
+            @Value("${cloudinary.connect-timeout:5000}") int connectTimeoutMillis) {
+        this.cloudinary = cloudinary;
+        this.uploader = new Uploader(cloudinary, new TimeoutUploaderStrategy(
+                Duration.ofMillis(connectTimeoutMillis), Duration.ofSeconds(timeoutSeconds)));
+        // Admin API options are whole seconds
+        int connectTimeoutSeconds = Math.max(1, (connectTimeoutMillis + 999) / 1000);
+        this.adminOptions = ObjectUtils.asMap(
+                "timeout", timeoutSeconds,
+                "connect_timeout", connectTimeoutSeconds,
+                "connection_request_timeout", connectTimeoutSeconds);
+        this.bulkhead = bulkheadRegistry.bulkhead(INSTANCE);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(INSTANCE);
+    }
+
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public String upload(byte[] bytes, String publicId) throws IOException {
+        Map<String, Object> property = ObjectUtils.asMap(
+                "public_id", publicId,
+                "overwrite", true,
+                "resource_type", "image");
+        Map result = guarded(() -> uploader.upload(bytes, property));
+        return (String) result.get("secure_url");
+    }
+
+    @Override
+    public void delete(String publicId) throws IOException {
+        guarded(() -> uploader.destroy(publicId, ObjectUtils.emptyMap()));
+    }
+
+    @Override
+    public void deleteAll(List<String> publicIds) throws IOException {
+        // Admin API bulk delete, up to 100 public ids per call
+        guarded(() -> cloudinary.api().deleteResources(publicIds, adminOptions));
+    }
+
+    /**
+     * Bulkhead outside the breaker, so calls rejected for lack of capacity
+     * are not counted as CDN failures.
+     */
+    private <T> T guarded(CheckedSupplier<T> call) throws IOException {
+        CheckedSupplier<T> decorated = Bulkhead.decorateCheckedSupplier(bulkhead,
+                CircuitBreaker.decorateCheckedSupplier(circuitBreaker, call));
+        try {
+            return decorated.get();
+        } catch (CallNotPermittedException e) {
+            throw new ServiceUnavailableException("Image service is temporarily unavailable");
+        } catch (BulkheadFullException e) {
+            log.warn("Image service bulkhead full, rejecting call");
+            throw new ServiceUnavailableException("Image service is busy, please retry");
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("Image service call failed", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.marvel.springsecurity.service.book.store;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Backend that holds uploaded images.
+ * Selected with image.store=cloudinary (default) or image.store=local.
+ */
+public interface ImageStore {
+
+    /**
+     * Store the bytes under the given public id, replacing any existing image.
+     *
+     * @return the URL clients use to fetch the image
+     */
+    String upload(byte[] bytes, String publicId) throws IOException;
+
+    void delete(String publicId) throws IOException;
+
+    /**
+     * Delete several images at once; backends with a bulk API override this.
+     */
+    default void deleteAll(List<String> publicIds) throws IOException {
+        for (String publicId : publicIds) {
+            delete(publicId);
+        }
+    }
+}
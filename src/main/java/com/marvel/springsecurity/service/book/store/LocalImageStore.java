@@ -0,0 +1,74 @@
+package com.marvel.springsecurity.service.book.store;
+
+import com.marvel.springsecurity.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Stores images on the local filesystem for dev, load tests or self-hosting.
+ * Public ids are content addressed ("books/md5[_variant]"), so a file never changes
+ * once written and can be served with long-lived caching.
+ * Files are served by ImageController under /api/images/{publicId}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "image.store", havingValue = "local")
+public class LocalImageStore implements ImageStore {
+
+    private static final Pattern PUBLIC_ID = Pattern.compile("[A-Za-z0-9_-]+(/[A-Za-z0-9_-]+)*");
+
+    private final Path baseDir;
+    private final String baseUrl;
+
+    public LocalImageStore(@Value("${image.local.dir:./data/images}") String baseDir,
+            @Value("${image.local.base-url:${app.backend.url:http://localhost:8080}/api/images}") String baseUrl)
+            throws IOException {
+        this.baseDir = Path.of(baseDir).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        Files.createDirectories(this.baseDir);
+        log.info("Local image store at {}", this.baseDir);
+    }
+
+    @Override
+    public String upload(byte[] bytes, String publicId) throws IOException {
+        Path target = resolve(publicId);
+        Files.createDirectories(target.getParent());
+
+        // Write to a sibling temp file and move, so readers never see a partial image
+        Path temp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return baseUrl + "/" + publicId;
+    }
+
+    @Override
+    public void delete(String publicId) throws IOException {
+        Files.deleteIfExists(resolve(publicId));
+    }
+
+    /**
+     * Map a public id to its file, rejecting anything that could escape the base directory.
+     */
+    public Path resolve(String publicId) {
+        if (publicId == null || !PUBLIC_ID.matcher(publicId).matches()) {
+            throw new BadRequestException("Invalid image id");
+        }
+        Path path = baseDir.resolve(publicId).normalize();
+        if (!path.startsWith(baseDir)) {
+            throw new BadRequestException("Invalid image id");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,127 @@
+package com.marvel.springsecurity.service.book.store;
+
+import com.cloudinary.ProgressCallback;
+import com.cloudinary.Uploader;
+import com.cloudinary.Util;
+import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.mime.ByteArrayBody;
+import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Upload API strategy with connect and read timeouts.
+ * The stock cloudinary-http5 strategy builds its HTTP client without any timeouts and
+ * ignores timeout options, so a stalled CDN would hold the calling thread indefinitely.
+ * Same request format as the stock strategy, limited to what the image store sends:
+ * text parameters and a byte array (or remote URL) file.
+ */
+class TimeoutUploaderStrategy extends AbstractUploaderStrategy {
+
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private CloseableHttpClient client;
+
+    TimeoutUploaderStrategy(Duration connectTimeout, Duration readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public void init(Uploader uploader) {
+        super.init(uploader);
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .build();
+        this.client = HttpClients.custom()
+                .setUserAgent(cloudinary().getUserAgent())
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setDefaultConnectionConfig(connectionConfig)
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Map callApi(String action, Map<String, Object> params, Map options, Object file,
+                       ProgressCallback progressCallback) throws IOException {
+        if (progressCallback != null) {
+            throw new IllegalArgumentException("Progress callback is not supported");
+        }
+        if (options == null) {
+            options = ObjectUtils.emptyMap();
+        }
+        boolean returnError = ObjectUtils.asBoolean(options.get("return_error"), false);
+        if (requiresSigning(action, options)) {
+            uploader.signRequestParams(params, options);
+        } else {
+            Util.clearEmpty(params);
+        }
+
+        HttpPost request = new HttpPost(buildUploadUrl(action, options));
+        request.setEntity(buildEntity(params, file, options));
+        // The response handler releases the connection however it returns
+        return client.execute(request, response -> {
+            String body;
+            try {
+                body = EntityUtils.toString(response.getEntity());
+            } catch (ParseException e) {
+                throw new IOException("Invalid response from image service", e);
+            }
+            // Server-side and throttling errors are I/O errors, worth retrying; the SDK
+            // reports every error status as a plain RuntimeException
+            if (response.getCode() >= 500 || response.getCode() == 429) {
+                throw new IOException("Image service returned status " + response.getCode());
+            }
+            return processResponse(returnError, response.getCode(), body);
+        });
+    }
+
+    private static HttpEntity buildEntity(Map<String, Object> params, Object file, Map<?, ?> options) throws IOException {
+        ContentType text = ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8);
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+                .setCharset(StandardCharsets.UTF_8)
+                .setMode(HttpMultipartMode.LEGACY);
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            if (param.getValue() instanceof Collection<?> values) {
+                for (Object value : values) {
+                    builder.addTextBody(param.getKey() + "[]", ObjectUtils.asString(value), text);
+                }
+            } else if (param.getValue() != null && !param.getValue().toString().isBlank()) {
+                builder.addTextBody(param.getKey(), param.getValue().toString(), text);
+            }
+        }
+
+        if (file instanceof byte[] bytes) {
+            String filename = options.get("filename") instanceof String name ? name : "file";
+            builder.addPart("file", new ByteArrayBody(bytes, ContentType.APPLICATION_OCTET_STREAM, filename));
+        } else if (file instanceof String url) {
+            builder.addTextBody("file", url, ContentType.TEXT_PLAIN);
+        } else if (file != null) {
+            throw new IOException("Unsupported file parameter " + file.getClass().getName());
+        }
+        return builder.build();
+    }
+}
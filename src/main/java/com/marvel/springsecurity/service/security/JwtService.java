@@ -1,9 +1,11 @@
 package com.marvel.springsecurity.service.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -30,6 +33,18 @@ public class JwtService {
     // 24 hours for email verification tokens
     private static final long EMAIL_VERIFICATION_EXPIRATION = 86400000;
 
+    // Key and parser derived from secretKey; rebuilt only if the secret changes
+    private volatile SigningKey signingKey;
+
+    private record SigningKey(String secret, Key key, JwtParser parser) {
+    }
+
+    @PostConstruct
+    void init() {
+        // Fail fast on a missing or too short secret instead of on the first request
+        signingKey();
+    }
+
     public String generateEmailToken(String email) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "email_verification");
@@ -90,6 +105,8 @@ public class JwtService {
         claims.put("type", "refresh");
         return Jwts.builder()
                 .setClaims(claims)
+                // Token id (jti) lets a single refresh token be revoked on rotation or logout
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
@@ -97,8 +114,17 @@ public class JwtService {
     }
 
     private Key getKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey().key();
+    }
+
+    private SigningKey signingKey() {
+        SigningKey current = signingKey;
+        if (current == null || !current.secret().equals(secretKey)) {
+            Key key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+            current = new SigningKey(secretKey, key, Jwts.parserBuilder().setSigningKey(key).build());
+            signingKey = current;
+        }
+        return current;
     }
 
     public String extractUserName(String token) {
@@ -111,17 +137,21 @@ public class JwtService {
     }
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build().parseClaimsJws(token).getBody();
+        return signingKey().parser().parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verify the token once and return the claims the application uses.
+     * Throws the same JwtException subtypes as extractAllClaims (expired, bad signature, malformed).
+     */
+    public ParsedToken parse(String token) {
+        return ParsedToken.from(extractAllClaims(token));
     }
 
     public String extractEmail(String token) {
         try {
-            if (isTokenExpired(token))
-                return null;
-            Claims claims = extractAllClaims(token);
-            return claims.getSubject();
+            ParsedToken parsed = parse(token);
+            return parsed.isExpired() ? null : parsed.subject();
         } catch (Exception e) {
             return null; // invalid token
         }
@@ -142,7 +172,7 @@ public class JwtService {
 
     // Lightweight validation for stateless auth
     public boolean validateToken(String token) {
-        return !isTokenExpired(token);
+        return !parse(token).isExpired();
     }
 
     /**
@@ -151,11 +181,11 @@ public class JwtService {
      */
     public boolean validateRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            if (!"refresh".equals(claims.get("type"))) {
+            ParsedToken parsed = parse(token);
+            if (!"refresh".equals(parsed.type())) {
                 return false; // Not a refresh token
             }
-            return !isTokenExpired(token);
+            return !parsed.isExpired();
         } catch (Exception e) {
             return false;
         }
@@ -166,28 +196,29 @@ public class JwtService {
      * Returns null if token is invalid or not a refresh token.
      */
     public String extractUsernameFromRefreshToken(String token) {
+        ParsedToken parsed = parseRefreshToken(token);
+        return parsed != null ? parsed.subject() : null;
+    }
+
+    /**
+     * Parse a refresh token.
+     * Returns null if the token is invalid, expired or not a refresh token.
+     */
+    public ParsedToken parseRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            if (!"refresh".equals(claims.get("type"))) {
-                return null; // Not a refresh token
+            ParsedToken parsed = parse(token);
+            if (!"refresh".equals(parsed.type()) || parsed.isExpired()) {
+                return null; // Not a (valid) refresh token
             }
-            return claims.getSubject();
+            return parsed;
         } catch (Exception e) {
             return null;
         }
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername()) && isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        ParsedToken parsed = parse(token);
+        return (parsed.subject().equals(userDetails.getUsername()) && parsed.isExpired());
     }
 
     /**
@@ -0,0 +1,48 @@
+package com.marvel.springsecurity.service.security;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Instant;
+
+/**
+ * A JWT whose signature and expiry have already been verified, with the claims the
+ * application reads. JwtFilter parses the Authorization header once and stores the
+ * result as a request attribute so later components do not verify the token again.
+ */
+public record ParsedToken(
+        String tokenId,
+        String subject,
+        String type,
+        String role,
+        Integer roleVersion,
+        Integer userId,
+        String imageUrl,
+        Instant expiresAt) {
+
+    public static final String REQUEST_ATTRIBUTE = ParsedToken.class.getName();
+
+    static ParsedToken from(Claims claims) {
+        return new ParsedToken(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get("type", String.class),
+                claims.get("role", String.class),
+                claims.get("roleVersion", Integer.class),
+                claims.get("userId", Integer.class),
+                claims.get("imageUrl", String.class),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+
+    /**
+     * The bearer token verified for this request, or null if there was none or it was invalid.
+     */
+    public static ParsedToken fromRequest(HttpServletRequest request) {
+        Object parsed = request.getAttribute(REQUEST_ATTRIBUTE);
+        return parsed instanceof ParsedToken token ? token : null;
+    }
+}
@@ -2,4 +2,10 @@ package com.marvel.springsecurity.service.security;
 
 public interface RoleVersionService {
     boolean isTokenRoleVersionCurrent(String username, Integer tokenRoleVersion);
+
+    /**
+     * Forget the cached role version and verified tokens of a user; call after changing
+     * their role or username.
+     */
+    void evict(String username);
 }
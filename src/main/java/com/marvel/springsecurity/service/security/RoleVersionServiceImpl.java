@@ -1,16 +1,42 @@
 package com.marvel.springsecurity.service.security;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.marvel.springsecurity.model.Users;
 import com.marvel.springsecurity.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
+/**
+ * Role versions are cached per username so the check on every authenticated request is a
+ * memory lookup. Entries are refreshed in the background after refreshAfterWrite (the stale
+ * value keeps being served meanwhile), which bounds how long a role change made directly in
+ * the database goes unnoticed; changes made through the application evict immediately,
+ * together with the user's verified tokens so none of them skips the next check.
+ */
 @Service
 public class RoleVersionServiceImpl implements RoleVersionService {
 
+    // Cached for unknown usernames, so tokens of deleted users do not hit the database each time
+    private static final int MISSING = Integer.MIN_VALUE;
+
     private final UserRepository userRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final LoadingCache<String, Integer> roleVersions;
 
-    public RoleVersionServiceImpl(UserRepository userRepository) {
+    public RoleVersionServiceImpl(UserRepository userRepository, VerifiedTokenCache verifiedTokenCache,
+            @Value("${security.role-version.cache.max-size:10000}") long maxSize,
+            @Value("${security.role-version.cache.refresh-after-write:30s}") Duration refreshAfterWrite) {
         this.userRepository = userRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.roleVersions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfterWrite)
+                // Entries nobody asked for in a while are dropped instead of refreshed forever
+                .expireAfterWrite(refreshAfterWrite.multipliedBy(10))
+                .build(this::loadRoleVersion);
     }
 
     @Override
@@ -19,17 +45,29 @@ public class RoleVersionServiceImpl implements RoleVersionService {
             return false;
         }
 
+        int dbRoleVersion = roleVersions.get(username);
+        if (dbRoleVersion == MISSING) {
+            return false;
+        }
+        return dbRoleVersion == tokenRoleVersion;
+    }
+
+    @Override
+    public void evict(String username) {
+        if (username != null) {
+            roleVersions.invalidate(username);
+            verifiedTokenCache.invalidateUser(username);
+        }
+    }
+
+    private Integer loadRoleVersion(String username) {
         Users user = userRepository.findByUsername(username)
                 .orElse(null);
         if (user == null) {
-            return false;
+            return MISSING;
         }
 
         Integer dbRoleVersion = user.getRoleVersion();
-        if (dbRoleVersion == null) {
-            return tokenRoleVersion == 0; // Default to 0 if null in DB
-        }
-
-        return dbRoleVersion.intValue() == tokenRoleVersion.intValue();
+        return dbRoleVersion == null ? 0 : dbRoleVersion; // Default to 0 if null in DB
     }
 }
@@ -0,0 +1,102 @@
+package com.marvel.springsecurity.service.security;
+
+import com.marvel.springsecurity.repo.RevokedTokenRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revoked refresh tokens, by token id (jti).
+ * The revoked_token table is the source of truth; an in-memory Bloom filter in front of
+ * it answers the common "not revoked" case without a query. Only filter hits (revoked
+ * tokens and the occasional false positive) go to the database.
+ * The filter is rebuilt from the table at startup and after each compaction, which
+ * also deletes rows whose token has expired anyway.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final RevokedTokenRepo revokedTokenRepo;
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Ids revoked while a rebuild is reading the table; added to the new filter before it is swapped in
+    private List<String> revokedDuringRebuild;
+
+    public TokenRevocationService(RevokedTokenRepo revokedTokenRepo,
+            @Value("${jwt.revocation.expected-tokens:100000}") long minExpectedInsertions,
+            @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepo = revokedTokenRepo;
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(minExpectedInsertions, falsePositiveRate);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokenRepo.existsById(tokenId);
+    }
+
+    /**
+     * Revoke a token. The insert is atomic, so when the same token is revoked
+     * concurrently exactly one caller gets true.
+     *
+     * @return true if this call revoked the token, false if it was already revoked
+     */
+    public boolean revoke(String tokenId, Instant expiresAt) {
+        boolean revoked = revokedTokenRepo.insertIfAbsent(tokenId, expiresAt) == 1;
+        synchronized (this) {
+            filter.put(tokenId);
+            if (revokedDuringRebuild != null) {
+                revokedDuringRebuild.add(tokenId);
+            }
+        }
+        return revoked;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            revokedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            List<String> active = revokedTokenRepo.findActiveTokenIds(Instant.now());
+            // Headroom for tokens revoked until the next rebuild
+            BloomFilter next = new BloomFilter(Math.max(minExpectedInsertions, active.size() * 2L), falsePositiveRate);
+            active.forEach(next::put);
+            synchronized (this) {
+                revokedDuringRebuild.forEach(next::put);
+                filter = next;
+            }
+            log.info("Token revocation filter rebuilt with {} revoked tokens", active.size());
+        } finally {
+            synchronized (this) {
+                revokedDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Drop revocations of tokens that have expired and rebuild the filter without them.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.compaction-interval-ms:3600000}",
+            initialDelayString = "${jwt.revocation.compaction-interval-ms:3600000}")
+    public void compact() {
+        int removed = revokedTokenRepo.deleteExpired(Instant.now());
+        if (removed > 0) {
+            log.info("Removed {} expired token revocations", removed);
+        }
+        rebuild();
+    }
+}
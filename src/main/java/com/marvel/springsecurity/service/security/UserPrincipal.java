@@ -19,6 +19,20 @@ public class UserPrincipal implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * Principal built from a verified access token, without a database load.
+     * The wrapped user only carries id, username, role and role version (no password
+     * or profile data); services that need the full entity load it by id.
+     */
+    public static UserPrincipal fromToken(ParsedToken token, String role) {
+        Users user = new Users();
+        user.setUserId(token.userId());
+        user.setUsername(token.subject());
+        user.setRole(role);
+        user.setRoleVersion(token.roleVersion());
+        return new UserPrincipal(user);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(user.getRole()));
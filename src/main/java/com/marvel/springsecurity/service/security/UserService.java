@@ -30,14 +30,19 @@ public class UserService {
     private final AuthenticationManager authenticationManager;
     private final ImageService imageService;
     private final EmailService emailService;
+    private final RoleVersionService roleVersionService;
+    private final TokenRevocationService tokenRevocationService;
 
     public UserService(UserRepository userRepo, JwtService jwtService, AuthenticationManager authenticationManager,
-            ImageService imageService, EmailService emailService) {
+            ImageService imageService, EmailService emailService, RoleVersionService roleVersionService,
+            TokenRevocationService tokenRevocationService) {
         this.userRepo = userRepo;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
         this.imageService = imageService;
         this.emailService = emailService;
+        this.roleVersionService = roleVersionService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
@@ -89,6 +94,7 @@ public class UserService {
         if (old.isEmpty())
             return null;
         Users updateUser = old.get();
+        String oldUsername = updateUser.getUsername();
         if (user.getUsername() != null)
             updateUser.setUsername(user.getUsername());
         if (user.getEmail() != null) {
@@ -99,11 +105,21 @@ public class UserService {
         }
         if (user.getPassword() != null)
             updateUser.setPassword(encoder.encode(user.getPassword()));
+        String oldPublicId = updateUser.getImagePublicId();
+        Map<String, Object> imageInfo = null;
         if (imageFile != null) {
-            Map<String, Object> imageInfo = imageService.uploadImage(imageFile, "profile");
+            imageInfo = imageService.uploadImage(imageFile, "profile");
             updateUser.setImageProperties(imageInfo);
         }
-        return userRepo.save(updateUser).toDto();
+        UserDto saved = userRepo.save(updateUser).toDto();
+        if (user.getUsername() != null) {
+            roleVersionService.evict(oldUsername);
+            roleVersionService.evict(saved.getUsername());
+        }
+        if (imageInfo != null) {
+            imageService.releaseReplacedImage(oldPublicId, imageInfo);
+        }
+        return saved;
     }
 
     public JwtResponse saveVerifiedUser(Users user) {
@@ -128,7 +144,9 @@ public class UserService {
             throw new UnauthorizedException("User not Authenticated");
         }
 
-        Users existingUser = userPrincipal.getUser();
+        // Principal is built from token claims and carries no password hash; load the user
+        Users existingUser = userRepo.findById(userPrincipal.getUserId())
+                .orElseThrow(() -> new UnauthorizedException("User not Authenticated"));
 
         // Check if user has an existing password (OAuth users might have empty password)
         boolean hasPassword = existingUser.getPassword() != null && !existingUser.getPassword().isEmpty();
@@ -153,8 +171,12 @@ public class UserService {
     public JwtResponse updateUsername(int userId, UserDto userDto) {
         Users existingUser = userRepo.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User Not found"));
+        String oldUsername = existingUser.getUsername();
         existingUser.setUsername(userDto.getUsername());
         Users savedUser = userRepo.save(existingUser);
+        // Tokens issued for the old username must stop being accepted right away
+        roleVersionService.evict(oldUsername);
+        roleVersionService.evict(savedUser.getUsername());
 
         // Generate new tokens since username (subject) changed
         String token = jwtService.generateToken(savedUser.getUsername(), savedUser.getRole(),
@@ -181,9 +203,12 @@ public class UserService {
         if (image == null) {
             throw new IllegalArgumentException("Image file cannot be null");
         }
+        String oldPublicId = existingUser.getImagePublicId();
         Map<String, Object> imageInfo = imageService.uploadImage(image, "profile");
         existingUser.setImageProperties(imageInfo);
         userRepo.save(existingUser);
+        // Queue the previous picture for deletion once nothing else references it
+        imageService.releaseReplacedImage(oldPublicId, imageInfo);
 
         return existingUser.toDto();
     }
@@ -211,32 +236,61 @@ public class UserService {
     public JwtResponse JwtFromRefreshToken(JwtResponse response) {
         String refreshToken = response.getRefreshToken();
 
-        // Validate it's actually a refresh token (not an access token)
-        if (!jwtService.validateRefreshToken(refreshToken)) {
+        // Single parse: null unless the signature is valid, it is unexpired and it is a refresh token
+        ParsedToken parsed = jwtService.parseRefreshToken(refreshToken);
+        if (parsed == null || parsed.subject() == null) {
             throw new ForbiddenException("Invalid or expired refresh token");
         }
-
-        String username = jwtService.extractUsernameFromRefreshToken(refreshToken);
-        if (username == null) {
-            throw new ForbiddenException("Invalid refresh token");
+        // Tokens issued before rotation existed carry no id and cannot be made single-use
+        if (parsed.tokenId() == null) {
+            throw new ForbiddenException("Refresh token is no longer supported, please log in again");
+        }
+        if (tokenRevocationService.isRevoked(parsed.tokenId())) {
+            log.warn("Revoked refresh token presented for user: {}", parsed.subject());
+            throw new ForbiddenException("Refresh token has been revoked");
         }
 
-        Users dbUser = userRepo.findByUsername(username)
+        Users dbUser = userRepo.findByUsername(parsed.subject())
                 .orElseThrow(() -> new ForbiddenException("User not found"));
 
+        // Rotation: the presented refresh token is single-use. Revoking it is an atomic
+        // insert, so of two concurrent exchanges of the same token only one gets new tokens
+        if (!tokenRevocationService.revoke(parsed.tokenId(), parsed.expiresAt())) {
+            log.warn("Refresh token reused concurrently for user: {}", parsed.subject());
+            throw new ForbiddenException("Refresh token has been revoked");
+        }
+
         String newAccessToken = jwtService.generateToken(
                 dbUser.getUsername(),
                 dbUser.getRole(),
                 dbUser.getRoleVersion(),
                 dbUser.getUserId());
+        String newRefreshToken = jwtService.generateRefreshToken(dbUser.getUsername());
 
         return JwtResponse.builder()
                 .token(newAccessToken)
-                .refreshToken(refreshToken) // Return the SAME refresh token
+                .refreshToken(newRefreshToken)
                 .user(dbUser.toDto())
                 .build();
     }
 
+    /**
+     * Revoke a refresh token so it can no longer be exchanged for access tokens.
+     * Invalid or expired tokens are ignored, so logging out twice is harmless.
+     */
+    public void logout(String refreshToken) {
+        ParsedToken parsed = jwtService.parseRefreshToken(refreshToken);
+        if (parsed != null) {
+            revokeRefreshToken(parsed);
+        }
+    }
+
+    private void revokeRefreshToken(ParsedToken parsed) {
+        if (parsed.tokenId() != null) {
+            tokenRevocationService.revoke(parsed.tokenId(), parsed.expiresAt());
+        }
+    }
+
     // TODO : Logging
     // Missing Logs:
     // Failed login attempts
@@ -0,0 +1,100 @@
+package com.marvel.springsecurity.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cache of access tokens whose signature has already been verified, so a client sending
+ * the same token on every request pays for HMAC verification and claim decoding once.
+ * Entries are keyed by the token's signature segment (already a digest of header and
+ * payload) and hold the full token, which is compared on lookup so a token with a reused
+ * signature but a different payload is never served from the cache.
+ * Each entry expires together with its token.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, Entry> tokens;
+
+    private record Entry(String token, ParsedToken parsed) {
+    }
+
+    public VerifiedTokenCache(@Value("${jwt.verified-cache.max-size:10000}") long maxSize) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        Instant expiresAt = entry.parsed().expiresAt();
+                        if (expiresAt == null) {
+                            return 0;
+                        }
+                        return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @return the previously verified token, or null if it has to be verified
+     */
+    public ParsedToken get(String token) {
+        String key = keyOf(token);
+        if (key == null) {
+            return null;
+        }
+        Entry entry = tokens.getIfPresent(key);
+        if (entry == null || !entry.token().equals(token) || entry.parsed().isExpired()) {
+            return null;
+        }
+        return entry.parsed();
+    }
+
+    public void put(String token, ParsedToken parsed) {
+        String key = keyOf(token);
+        if (key != null && parsed.expiresAt() != null) {
+            tokens.put(key, new Entry(token, parsed));
+        }
+    }
+
+    /**
+     * Drop a token, e.g. after its role version turned out to be stale.
+     */
+    public void invalidate(String token) {
+        String key = keyOf(token);
+        if (key != null) {
+            tokens.invalidate(key);
+        }
+    }
+
+    /**
+     * Drop every cached token of a user, e.g. after their role changed.
+     */
+    public void invalidateUser(String username) {
+        tokens.asMap().values().removeIf(entry -> username.equals(entry.parsed().subject()));
+    }
+
+    private static String keyOf(String token) {
+        int lastDot = token == null ? -1 : token.lastIndexOf('.');
+        if (lastDot < 0 || lastDot == token.length() - 1) {
+            return null;
+        }
+        return token.substring(lastDot + 1);
+    }
+}
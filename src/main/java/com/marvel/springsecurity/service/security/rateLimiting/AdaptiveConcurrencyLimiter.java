@@ -0,0 +1,125 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one class of expensive endpoints, adjusted AIMD-style from
+ * observed latency: while requests complete close to the no-load latency and the limit
+ * is actually used, it grows by one per request; when latency exceeds the no-load
+ * latency by the tolerance factor (work is queueing for CPU or the database), it is
+ * cut by 10%, at most once per round trip. Requests beyond the limit are rejected
+ * immediately instead of queueing behind the ones already running.
+ * <p>
+ * The no-load latency is the lowest latency of successful requests, re-measured every
+ * 500 of them so it can follow real changes (e.g. a slower host). Failed requests only
+ * give their slot back: a 400 for a malformed body returns long before any BCrypt work
+ * and would otherwise pull the no-load latency down until every real request looks
+ * overloaded. For the same reason a class should group endpoints of similar cost.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final int PROBE_SAMPLES = 500;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private long noLoadLatencyNanos = Long.MAX_VALUE;
+    private long windowMinLatencyNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, MeterRegistry meterRegistry) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = tolerance;
+        this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+
+        Gauge.builder("loadshedding.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("class", name)
+                .description("Current concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("loadshedding.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("class", name)
+                .description("Requests currently running")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("loadshedding.rejected")
+                .tag("class", name)
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a slot if the limit allows it. Every successful call must be followed by release().
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back and, for a successful request, feed its latency into the limit.
+     *
+     * @param startNanos System.nanoTime() taken right after tryAcquire()
+     * @param success    whether the request completed normally (2xx)
+     */
+    public void release(long startNanos, boolean success) {
+        long now = System.nanoTime();
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (success) {
+            onSample(startNanos, now, inFlightBefore);
+        }
+    }
+
+    private synchronized void onSample(long startNanos, long endNanos, int inFlightBefore) {
+        long latency = endNanos - startNanos;
+        noLoadLatencyNanos = Math.min(noLoadLatencyNanos, latency);
+        windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latency);
+        if (++windowSamples >= PROBE_SAMPLES) {
+            noLoadLatencyNanos = windowMinLatencyNanos;
+            windowMinLatencyNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        if (latency > noLoadLatencyNanos * tolerance) {
+            // Requests admitted before the last cut say nothing about the new limit
+            if (startNanos - lastDecreaseNanos > 0) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+                lastDecreaseNanos = endNanos;
+            }
+        } else if (inFlightBefore * 2 >= estimatedLimit) {
+            // Only grow while the limit is actually being used
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
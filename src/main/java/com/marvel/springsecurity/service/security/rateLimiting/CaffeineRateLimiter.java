@@ -2,28 +2,53 @@ package com.marvel.springsecurity.service.security.rateLimiting;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import lombok.Getter;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
- * In-memory rate limiter using Caffeine cache with Token Bucket algorithm.
+ * In-memory rate limiter using Caffeine cache; the algorithm is chosen per endpoint limit.
  * Thread-safe and high-performance for single-instance deployments.
- * Can be easily replaced with Redis-based implementation for multi-instance scaling.
+ * Multi-instance deployments use DistributedRateLimiter (ratelimit.backend=postgres) instead.
+ * The cache is keyed by ClientKey; each entry holds that client's buckets
+ * indexed by route id, so reset and inspection never scan the cache.
+ * A client that used one limited route costs roughly 300 bytes of heap (cache entry,
+ * key, slot array and one ~40 byte state), plus 40 bytes per further route, so
+ * ratelimit.cache.max-size=1000000 needs about 300 MB.
  */
 @Slf4j
 @Service
 @Primary
+@ConditionalOnProperty(name = "ratelimit.backend", havingValue = "caffeine", matchIfMissing = true)
 public class CaffeineRateLimiter implements RateLimiterService {
 
-    private final Cache<String, TokenBucket> cache;
+    private final Cache<ClientKey, ClientBuckets> cache;
     private final RateLimitConfig config;
+    private final RateLimitMetrics metrics;
+    private final int routeCount;
 
+    /**
+     * Standalone limiter (tests, benchmarks) with metrics kept in a private registry.
+     */
     public CaffeineRateLimiter(RateLimitConfig config) {
+        this(config, new RateLimitMetrics(new SimpleMeterRegistry(), 20, 10_000, 600_000));
+    }
+
+    @Autowired
+    public CaffeineRateLimiter(RateLimitConfig config, RateLimitMetrics metrics) {
         this.config = config;
+        this.metrics = metrics;
+        this.routeCount = RateLimitConfig.routes().size();
         this.cache = Caffeine.newBuilder()
                 .maximumSize(config.getCache().getMaxSize())
                 .expireAfterWrite(config.getCache().getExpireHours(), TimeUnit.HOURS)
@@ -36,43 +61,81 @@ public class CaffeineRateLimiter implements RateLimiterService {
     }
 
     @Override
-    public boolean allowRequest(String key, String endpoint) {
+    public boolean allowRequest(ClientKey key, String endpoint) {
+        return tryAcquire(key, endpoint).allowed();
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(ClientKey key, String endpoint) {
         if (!config.isEnabled()) {
-            return true; // Rate limiting disabled
+            return RateLimitDecision.unlimited(endpoint); // Rate limiting disabled
         }
 
-        RateLimitConfig.EndpointLimit endpointConfig = config.getConfigForEndpoint(endpoint);
-        if (endpointConfig == null) {
-            return true; // No rate limit configured for this endpoint
+        RateLimitRoute route = config.resolveRoute(endpoint);
+        if (route == null) {
+            return RateLimitDecision.unlimited(endpoint); // No rate limit configured for this endpoint
         }
 
-        String cacheKey = buildCacheKey(endpoint, key);
-        TokenBucket bucket = cache.get(cacheKey, k -> new TokenBucket(
-                endpointConfig.getRequests(),
-                endpointConfig.getWindowSeconds()
-        ));
-
-        boolean allowed = bucket.tryConsume();
+        return acquire(key, route, endpoint, 1);
+    }
 
-        if (!allowed) {
-            log.warn("Rate limit exceeded for key: {} on endpoint: {}", key, endpoint);
+    @Override
+    public RateLimitDecision tryAcquireRead(ClientKey key, String endpoint, int cost) {
+        if (!config.isEnabled() || !config.getRead().isEnabled()) {
+            return RateLimitDecision.unlimited(endpoint);
         }
+        return acquire(key, RateLimitConfig.readRoute(), endpoint, cost);
+    }
+
+    RateLimitDecision acquire(ClientKey key, RateLimitRoute route, String endpoint, int cost) {
+        RateLimitConfig.EndpointLimit endpointConfig = route.limitIn(config);
+        RateLimitState bucket = cache.get(key, k -> new ClientBuckets(routeCount))
+                .getOrCreate(route.id(), endpointConfig::newState);
 
-        return allowed;
+        RateLimitDecision decision = bucket.tryAcquire(endpoint, cost);
+        metrics.record(route, key, decision.allowed());
+        return decision;
     }
 
     @Override
-    public RateLimitInfo getLimitInfo(String key, String endpoint) {
-        RateLimitConfig.EndpointLimit endpointConfig = config.getConfigForEndpoint(endpoint);
-        if (endpointConfig == null) {
+    public RateLimitInfo getLimitInfo(ClientKey key, String endpoint) {
+        RateLimitRoute route = config.resolveRoute(endpoint);
+        if (route == null) {
             return new RateLimitInfo(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, endpoint); //initializing
         }
 
-        String cacheKey = buildCacheKey(endpoint, key);
-        TokenBucket bucket = cache.getIfPresent(cacheKey);
+        ClientBuckets buckets = cache.getIfPresent(key);
+        RateLimitState bucket = buckets != null ? buckets.get(route.id()) : null;
+        return infoFor(route, bucket, endpoint);
+    }
+
+    @Override
+    public void resetLimit(ClientKey key) {
+        // Remove all buckets for this key (across all endpoints)
+        cache.invalidate(key);
+        log.info("Reset rate limits for key: {}", key);
+    }
+
+    @Override
+    public List<RateLimitInfo> inspect(ClientKey key) {
+        ClientBuckets buckets = cache.getIfPresent(key);
+        if (buckets == null) {
+            return List.of();
+        }
+        List<RateLimitInfo> limits = new ArrayList<>();
+        for (RateLimitRoute route : RateLimitConfig.routes()) {
+            RateLimitState bucket = buckets.get(route.id());
+            if (bucket != null) {
+                limits.add(infoFor(route, bucket, "/api" + route.path()));
+            }
+        }
+        return limits;
+    }
 
+    private RateLimitInfo infoFor(RateLimitRoute route, RateLimitState bucket, String endpoint) {
         if (bucket == null) {
             // No requests made yet, all tokens available
+            RateLimitConfig.EndpointLimit endpointConfig = route.limitIn(config);
             return new RateLimitInfo(
                     endpointConfig.getRequests(),
                     System.currentTimeMillis() / 1000 + endpointConfig.getWindowSeconds(),
@@ -89,87 +152,22 @@ public class CaffeineRateLimiter implements RateLimiterService {
         );
     }
 
-    @Override
-    public void resetLimit(String key) {
-        // Remove all entries for this key (across all endpoints)
-        cache.asMap().keySet().removeIf(k -> k.endsWith(":" + key));
-        log.info("Reset rate limits for key: {}", key);
-    }
-
-    /**
-     * Build cache key in format: "endpoint:identifier"
-     */
-    private String buildCacheKey(String endpoint, String key) {
-        return endpoint + ":" + key;
-    }
-
     /**
      * Get cache statistics for monitoring.
      */
-    public String getCacheStats() {
-        return cache.stats().toString();
+    @Override
+    public Map<String, Object> getCacheStats() {
+        return describe(cache);
     }
 
-    /**
-     * Token Bucket implementation for smooth rate limiting.
-     * Tokens refill gradually over time, allowing burst traffic while maintaining average rate.
-     */
-    private static class TokenBucket {
-        private double tokens;
-        @Getter
-        private final int capacity;
-        private final long windowNanos;
-        private long lastRefillNanos;
-        private final double tokensPerNano;
-
-        public TokenBucket(int capacity, int windowSeconds) {
-            this.capacity = capacity;
-            this.tokens = capacity;
-            this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
-            this.lastRefillNanos = System.nanoTime();
-            // Calculate how many tokens to add per nanosecond
-            this.tokensPerNano = (double) capacity / windowNanos;
-        }
-
-        /**
-         * Try to consume one token. Returns true if successful, false if bucket is empty.
-         * Thread-safe operation.
-         */
-        public synchronized boolean tryConsume() {
-            refill();
-
-            if (tokens >= 1.0) {
-                tokens -= 1.0;
-                return true;
-            }
-
-            return false;
-        }
-
-        /**
-         * Refill tokens based on elapsed time since last refill.
-         */
-        private void refill() {
-            long now = System.nanoTime();
-            long elapsedNanos = now - lastRefillNanos;
-
-            if (elapsedNanos > 0) {
-                double tokensToAdd = elapsedNanos * tokensPerNano;
-                tokens = Math.min(capacity, tokens + tokensToAdd);
-                lastRefillNanos = now;
-            }
-        }
-
-        public synchronized int getAvailableTokens() {
-            refill();
-            return (int) Math.floor(tokens);
-        }
-
-        public long getResetTimeEpochSeconds() {
-            long now = System.nanoTime();
-            long nanosUntilFull = (long) ((capacity - tokens) / tokensPerNano);
-            long resetTimeNanos = now + nanosUntilFull;
-            return TimeUnit.NANOSECONDS.toSeconds(resetTimeNanos);
-        }
+    static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("size", cache.estimatedSize());
+        description.put("hitCount", stats.hitCount());
+        description.put("missCount", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictionCount", stats.evictionCount());
+        return description;
     }
-}
\ No newline at end of file
+}
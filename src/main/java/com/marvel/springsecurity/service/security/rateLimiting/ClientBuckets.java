@@ -0,0 +1,32 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * All limiter states of one client (IP or email), one slot per rate limit route id.
+ * Buckets are created on first use of a route; the slot array is fixed-size, so
+ * resetting or inspecting a client touches at most one entry per route.
+ */
+final class ClientBuckets {
+
+    private final AtomicReferenceArray<RateLimitState> slots;
+
+    ClientBuckets(int routeCount) {
+        this.slots = new AtomicReferenceArray<>(routeCount);
+    }
+
+    RateLimitState get(int routeId) {
+        return slots.get(routeId);
+    }
+
+    RateLimitState getOrCreate(int routeId, Supplier<RateLimitState> factory) {
+        RateLimitState bucket = slots.get(routeId);
+        if (bucket != null) {
+            return bucket;
+        }
+        RateLimitState created = factory.get();
+        // Another thread may have won the race; everyone uses the winner's bucket
+        return slots.compareAndSet(routeId, null, created) ? created : slots.get(routeId);
+    }
+}
@@ -0,0 +1,215 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Compact rate limit key: who a limit applies to, as a type tag and 128 bits.
+ * IP addresses are packed directly (IPv4 in the low 32 bits, IPv6 across both longs)
+ * and parsed straight out of the header they come from, so the IP path allocates
+ * nothing but this object. Emails and anything else are keyed by the first 128 bits
+ * of their SHA-256, which keeps keys small and stable across instances and cannot be
+ * steered into another client's bucket. The hash code is computed once.
+ */
+public final class ClientKey {
+
+    private static final byte IPV4 = 1;
+    private static final byte IPV6 = 2;
+    private static final byte EMAIL = 3;
+    private static final byte OTHER = 4;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final byte type;
+    private final long hi;
+    private final long lo;
+    private final int hash;
+
+    private ClientKey(byte type, long hi, long lo) {
+        this.type = type;
+        this.hi = hi;
+        this.lo = lo;
+        this.hash = mix(hi * 31 + lo, type);
+    }
+
+    /**
+     * Key for the IP address literal in s[start, end), or null if it is not one.
+     */
+    public static ClientKey ofAddress(CharSequence s, int start, int end) {
+        if (start >= end) {
+            return null;
+        }
+        long v4 = IpWhitelist.parseIpv4(s, start, end);
+        if (v4 >= 0) {
+            return new ClientKey(IPV4, 0, v4);
+        }
+        int zone = indexOf(s, '%', start, end);
+        byte[] v6 = IpWhitelist.parseIpv6(s, start, zone >= 0 ? zone : end);
+        if (v6 == null) {
+            return null;
+        }
+        long hi = toLong(v6, 0);
+        long lo = toLong(v6, 8);
+        if (hi == 0 && lo >>> 32 == 0xFFFFL) {
+            // IPv4-mapped (::ffff:a.b.c.d): same client as the plain IPv4 address
+            return new ClientKey(IPV4, 0, lo & 0xFFFFFFFFL);
+        }
+        return new ClientKey(IPV6, hi, lo);
+    }
+
+    public static ClientKey ofEmail(String email) {
+        return hashed(EMAIL, email);
+    }
+
+    /**
+     * Key for an identifier as shown by toString() or used by the admin endpoints:
+     * "ip:203.0.113.7", "email:user@example.com", a hashed key's text form
+     * ("email#<hash>", "other#<hash>", taken as is), or a bare address. Anything else is hashed.
+     */
+    public static ClientKey parse(String identifier) {
+        ClientKey hashedKey = parseHashed(identifier);
+        if (hashedKey != null) {
+            return hashedKey;
+        }
+        if (identifier.startsWith("ip:")) {
+            ClientKey key = ofAddress(identifier, 3, identifier.length());
+            if (key != null) {
+                return key;
+            }
+        } else if (identifier.startsWith("email:")) {
+            return ofEmail(identifier.substring(6));
+        }
+        ClientKey key = ofAddress(identifier, 0, identifier.length());
+        return key != null ? key : hashed(OTHER, identifier);
+    }
+
+    /**
+     * Key for the "email#<hash>" / "other#<hash>" form of toString(), or null if it is not one.
+     */
+    private static ClientKey parseHashed(String identifier) {
+        byte type;
+        int start;
+        if (identifier.startsWith("email#")) {
+            type = EMAIL;
+            start = 6;
+        } else if (identifier.startsWith("other#")) {
+            type = OTHER;
+            start = 6;
+        } else {
+            return null;
+        }
+        if (identifier.length() != start + 32) {
+            return null;
+        }
+        try {
+            return new ClientKey(type, Long.parseUnsignedLong(identifier, start, start + 16, 16),
+                    Long.parseUnsignedLong(identifier, start + 16, start + 32, 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean isIpv4() {
+        return type == IPV4;
+    }
+
+    public boolean isIpv6() {
+        return type == IPV6;
+    }
+
+    /**
+     * IPv4 address as an int; only meaningful if isIpv4().
+     */
+    int ipv4() {
+        return (int) lo;
+    }
+
+    long high() {
+        return hi;
+    }
+
+    long low() {
+        return lo;
+    }
+
+    private static ClientKey hashed(byte type, String value) {
+        MessageDigest digest = SHA_256.get();
+        byte[] sha = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+        return new ClientKey(type, toLong(sha, 0), toLong(sha, 8));
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = value << 8 | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int indexOf(CharSequence s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int mix(long value, byte type) {
+        // fmix64 finalizer from MurmurHash3
+        long h = value ^ type;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (h ^ h >>> 32);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ClientKey other
+                && type == other.type && hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Stable text form, also used as the identifier in the shared rate limit store.
+     * Emails and other hashed keys are shown by their hash, with '#' instead of ':' so
+     * parse() takes the hash as is instead of hashing the text again.
+     */
+    @Override
+    public String toString() {
+        return switch (type) {
+            case IPV4 -> "ip:" + (lo >>> 24 & 0xFF) + "." + (lo >>> 16 & 0xFF) + "." + (lo >>> 8 & 0xFF) + "." + (lo & 0xFF);
+            case IPV6 -> {
+                StringBuilder sb = new StringBuilder("ip:");
+                for (int group = 0; group < 8; group++) {
+                    long word = group < 4 ? hi : lo;
+                    sb.append(Long.toHexString(word >>> (48 - 16 * (group & 3)) & 0xFFFF));
+                    if (group < 7) {
+                        sb.append(':');
+                    }
+                }
+                yield sb.toString();
+            }
+            case EMAIL -> "email#" + hex();
+            default -> "other#" + hex();
+        };
+    }
+
+    private String hex() {
+        return String.format("%016x%016x", hi, lo);
+    }
+}
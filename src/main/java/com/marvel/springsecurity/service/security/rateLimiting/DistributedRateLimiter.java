@@ -0,0 +1,316 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter for multi-instance deployments (ratelimit.backend=postgres): limits are
+ * enforced on buckets in a shared TokenLeaseStore, so N instances together allow what
+ * RateLimitConfig says instead of N times that.
+ * <p>
+ * Each instance leases a small batch of tokens per client and route and serves requests
+ * from it locally; the store sees one round trip per batch. A batch is at most a tenth of
+ * the route's capacity, so strict limits (login, password reset, ...) are leased one token
+ * at a time and stay exact. Tokens not used within the lease TTL are dropped, which can
+ * only make the limit stricter. When the store is empty the instance stops asking until
+ * the next token is due, and when the store is unreachable it falls back to local limits.
+ * <p>
+ * Store calls are made outside the lease's monitor, and after a failed call the store is
+ * skipped entirely (local limits only) for a backoff that doubles with every further
+ * failure, up to 32 times failure-backoff-ms; then a single request probes it again.
+ * A database outage therefore costs one slow call per backoff, not one per request.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "ratelimit.backend", havingValue = "postgres")
+public class DistributedRateLimiter implements RateLimiterService {
+
+    private final RateLimitConfig config;
+    private final TokenLeaseStore store;
+    private final RateLimitMetrics metrics;
+    private final CaffeineRateLimiter fallback;
+    private final Cache<ClientKey, TokenLease[]> leases;
+    private final int routeCount;
+    private final int maxLeaseSize;
+    private final long leaseTtlNanos;
+    private final long failureBackoffMillis;
+    // 0 while the store is healthy; otherwise the time before which it is not called
+    private final AtomicLong storeRetryAtMillis = new AtomicLong();
+    private final AtomicInteger storeFailures = new AtomicInteger();
+
+    public DistributedRateLimiter(RateLimitConfig config, TokenLeaseStore store, RateLimitMetrics metrics,
+            @Value("${ratelimit.distributed.lease-size:10}") int maxLeaseSize,
+            @Value("${ratelimit.distributed.lease-ttl-ms:1000}") long leaseTtlMillis,
+            @Value("${ratelimit.distributed.failure-backoff-ms:1000}") long failureBackoffMillis) {
+        this.config = config;
+        this.store = store;
+        this.metrics = metrics;
+        this.fallback = new CaffeineRateLimiter(config, metrics);
+        this.routeCount = RateLimitConfig.routes().size();
+        this.maxLeaseSize = Math.max(1, maxLeaseSize);
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMillis);
+        this.failureBackoffMillis = Math.max(1, failureBackoffMillis);
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(config.getCache().getMaxSize())
+                .expireAfterWrite(config.getCache().getExpireHours(), TimeUnit.HOURS)
+                .recordStats()
+                .build();
+
+        log.info("Distributed rate limiter initialized with lease size: {}, lease ttl: {} ms",
+                this.maxLeaseSize, leaseTtlMillis);
+    }
+
+    @Override
+    public boolean allowRequest(ClientKey key, String endpoint) {
+        return tryAcquire(key, endpoint).allowed();
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(ClientKey key, String endpoint) {
+        if (!config.isEnabled()) {
+            return RateLimitDecision.unlimited(endpoint);
+        }
+
+        RateLimitRoute route = config.resolveRoute(endpoint);
+        if (route == null) {
+            return RateLimitDecision.unlimited(endpoint);
+        }
+
+        return acquire(key, route, endpoint, 1);
+    }
+
+    @Override
+    public RateLimitDecision tryAcquireRead(ClientKey key, String endpoint, int cost) {
+        if (!config.isEnabled() || !config.getRead().isEnabled()) {
+            return RateLimitDecision.unlimited(endpoint);
+        }
+        return acquire(key, RateLimitConfig.readRoute(), endpoint, cost);
+    }
+
+    private RateLimitDecision acquire(ClientKey key, RateLimitRoute route, String endpoint, int cost) {
+        RateLimitConfig.EndpointLimit limit = route.limitIn(config);
+        long intervalMillis = Math.max(1, limit.getWindowSeconds() * 1000L / limit.getRequests());
+        long burstMillis = intervalMillis * limit.getRequests();
+        TokenLease lease = leases.get(key, k -> newLeases())[route.id()];
+        long now = System.currentTimeMillis();
+        int wanted;
+
+        synchronized (lease) {
+            expireLease(lease);
+            if (lease.remaining >= cost) {
+                lease.remaining -= cost;
+                metrics.record(route, key, true);
+                return decision(true, lease, limit, intervalMillis, burstMillis, now, endpoint);
+            }
+            if (now < lease.retryAtMillis) {
+                metrics.record(route, key, false);
+                return decision(false, lease, limit, intervalMillis, burstMillis, now, endpoint);
+            }
+            wanted = Math.max(cost - lease.remaining, leaseSize(limit));
+        }
+
+        if (!storeAvailable(now)) {
+            return fallback.acquire(key, route, endpoint, cost);
+        }
+        // Round trip without holding the monitor; concurrent misses each lease their own
+        // batch, and tokens left over expire with the lease
+        TokenLeaseStore.Lease granted;
+        try {
+            granted = store.lease(key.toString(), route.id(), wanted, intervalMillis, burstMillis, now);
+        } catch (RuntimeException e) {
+            storeFailed(e);
+            return fallback.acquire(key, route, endpoint, cost);
+        }
+        storeSucceeded();
+
+        synchronized (lease) {
+            expireLease(lease);
+            lease.tatMillis = Math.max(lease.tatMillis, granted.tatMillis());
+            if (granted.granted() > 0) {
+                lease.remaining += granted.granted();
+                lease.leasedAtNanos = System.nanoTime();
+            }
+            if (lease.remaining >= cost) {
+                lease.remaining -= cost;
+                metrics.record(route, key, true);
+                return decision(true, lease, limit, intervalMillis, burstMillis, now, endpoint);
+            }
+            // Bucket is empty everywhere: no point asking again before the missing tokens are due
+            lease.retryAtMillis = granted.tatMillis() - burstMillis + (cost - lease.remaining) * intervalMillis;
+            metrics.record(route, key, false);
+            return decision(false, lease, limit, intervalMillis, burstMillis, now, endpoint);
+        }
+    }
+
+    private void expireLease(TokenLease lease) {
+        if (System.nanoTime() - lease.leasedAtNanos >= leaseTtlNanos) {
+            lease.remaining = 0;
+        }
+    }
+
+    /**
+     * Whether to call the store now. While backing off after a failure only the first
+     * caller after the backoff gets through; it pushes the retry time out for the others.
+     */
+    private boolean storeAvailable(long now) {
+        long retryAt = storeRetryAtMillis.get();
+        if (retryAt == 0) {
+            return true;
+        }
+        return now >= retryAt && storeRetryAtMillis.compareAndSet(retryAt, now + backoffMillis(storeFailures.get()));
+    }
+
+    private void storeFailed(RuntimeException e) {
+        int failures = storeFailures.incrementAndGet();
+        long backoff = backoffMillis(failures);
+        storeRetryAtMillis.set(System.currentTimeMillis() + backoff);
+        log.warn("Shared rate limit store unavailable, using local limits for {} ms: {}", backoff, e.getMessage());
+    }
+
+    private void storeSucceeded() {
+        if (storeRetryAtMillis.get() != 0) {
+            storeFailures.set(0);
+            storeRetryAtMillis.set(0);
+            log.info("Shared rate limit store reachable again");
+        }
+    }
+
+    private long backoffMillis(int failures) {
+        // 1x, 2x, 4x ... up to 32x
+        return failureBackoffMillis << Math.min(Math.max(failures - 1, 0), 5);
+    }
+
+    @Override
+    public RateLimitInfo getLimitInfo(ClientKey key, String endpoint) {
+        RateLimitRoute route = config.resolveRoute(endpoint);
+        if (route == null) {
+            return new RateLimitInfo(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, endpoint);
+        }
+
+        RateLimitConfig.EndpointLimit limit = route.limitIn(config);
+        long intervalMillis = Math.max(1, limit.getWindowSeconds() * 1000L / limit.getRequests());
+        long burstMillis = intervalMillis * limit.getRequests();
+        TokenLease[] clientLeases = leases.getIfPresent(key);
+        long now = System.currentTimeMillis();
+        if (clientLeases == null) {
+            return new RateLimitInfo(limit.getRequests(), now / 1000 + limit.getWindowSeconds(),
+                    limit.getRequests(), endpoint);
+        }
+        TokenLease lease = clientLeases[route.id()];
+        synchronized (lease) {
+            return decision(true, lease, limit, intervalMillis, burstMillis, now, endpoint).info();
+        }
+    }
+
+    @Override
+    public void resetLimit(ClientKey key) {
+        try {
+            store.reset(key.toString());
+        } catch (RuntimeException e) {
+            log.warn("Could not reset shared rate limits for key: {}: {}", key, e.getMessage());
+        }
+        // Leases other instances already hold run out within the lease TTL
+        leases.invalidate(key);
+        fallback.resetLimit(key);
+        log.info("Reset rate limits for key: {}", key);
+    }
+
+    @Override
+    public List<RateLimitInfo> inspect(ClientKey key) {
+        Map<Integer, Long> arrivalTimes;
+        try {
+            arrivalTimes = store.arrivalTimes(key.toString());
+        } catch (RuntimeException e) {
+            log.warn("Shared rate limit store unavailable, showing local limits: {}", e.getMessage());
+            return fallback.inspect(key);
+        }
+
+        long now = System.currentTimeMillis();
+        List<RateLimitInfo> limits = new ArrayList<>();
+        for (RateLimitRoute route : RateLimitConfig.routes()) {
+            Long tat = arrivalTimes.get(route.id());
+            if (tat == null) {
+                continue;
+            }
+            RateLimitConfig.EndpointLimit limit = route.limitIn(config);
+            long intervalMillis = Math.max(1, limit.getWindowSeconds() * 1000L / limit.getRequests());
+            limits.add(new RateLimitInfo(
+                    storeRemaining(tat, intervalMillis * limit.getRequests(), intervalMillis, now),
+                    resetEpochSeconds(tat, now),
+                    limit.getRequests(),
+                    "/api" + route.path()
+            ));
+        }
+        return limits;
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        return CaffeineRateLimiter.describe(leases);
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.distributed.purge-interval-ms:600000}")
+    public void purgeRefilledBuckets() {
+        try {
+            int purged = store.purgeRefilled(System.currentTimeMillis());
+            log.debug("Purged {} refilled rate limit buckets", purged);
+        } catch (RuntimeException e) {
+            log.warn("Could not purge rate limit buckets: {}", e.getMessage());
+        }
+    }
+
+    private TokenLease[] newLeases() {
+        TokenLease[] clientLeases = new TokenLease[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            clientLeases[i] = new TokenLease();
+        }
+        return clientLeases;
+    }
+
+    private int leaseSize(RateLimitConfig.EndpointLimit limit) {
+        return Math.max(1, Math.min(maxLeaseSize, limit.getRequests() / 10));
+    }
+
+    private RateLimitDecision decision(boolean allowed, TokenLease lease, RateLimitConfig.EndpointLimit limit,
+                                       long intervalMillis, long burstMillis, long now, String endpoint) {
+        int remaining = lease.remaining + storeRemaining(lease.tatMillis, burstMillis, intervalMillis, now);
+        return new RateLimitDecision(allowed, new RateLimitInfo(
+                Math.min(remaining, limit.getRequests()),
+                resetEpochSeconds(lease.tatMillis, now),
+                limit.getRequests(),
+                endpoint
+        ));
+    }
+
+    private static int storeRemaining(long tatMillis, long burstMillis, long intervalMillis, long now) {
+        return (int) Math.max(0, (burstMillis - Math.max(0, tatMillis - now)) / intervalMillis);
+    }
+
+    private static long resetEpochSeconds(long tatMillis, long now) {
+        return (Math.max(tatMillis, now) + 999) / 1000;
+    }
+
+    /**
+     * Tokens this instance holds for one client and route; guarded by its own monitor.
+     */
+    private static final class TokenLease {
+        private int remaining;
+        private long leasedAtNanos;
+        // Store had no tokens left: don't ask again before this time
+        private long retryAtMillis;
+        // Bucket arrival time as of the last lease
+        private long tatMillis;
+    }
+}
@@ -0,0 +1,93 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed window counter: at most capacity requests per window, windows aligned to the
+ * counter's creation. Window index and count are packed into one long
+ * (index in the high 32 bits, count in the low 32) and updated with a single CAS.
+ * The window only ever moves forward: a state already in a later window than the
+ * caller's clock reading is treated as current.
+ */
+public final class FixedWindowCounter implements RateLimitState {
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(FixedWindowCounter.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity;
+    private final long windowNanos;
+    private final long origin;
+    private volatile long state;
+
+    public FixedWindowCounter(int capacity, int windowSeconds) {
+        this.capacity = capacity;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(1, windowSeconds));
+        this.origin = System.nanoTime();
+    }
+
+    @Override
+    public boolean tryConsume() {
+        return tryAcquire(null).allowed();
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String endpoint, int cost) {
+        while (true) {
+            // Time is read after the state (and again on every retry), so it is never older
+            // than the time the state was written with and the state never moves back a window
+            long current = state;
+            long elapsed = System.nanoTime() - origin;
+            long window = elapsed / windowNanos & 0xFFFFFFFFL;
+            long stateWindow = current >>> 32;
+            if ((int) (stateWindow - window) > 0) {
+                window = stateWindow;
+            }
+            int count = stateWindow == window ? (int) current : 0;
+            if (count + cost > capacity) {
+                return decision(false, capacity - count, elapsed, endpoint);
+            }
+            if (STATE.compareAndSet(this, current, window << 32 | (count + cost))) {
+                return decision(true, capacity - count - cost, elapsed, endpoint);
+            }
+        }
+    }
+
+    private RateLimitDecision decision(boolean allowed, int remaining, long elapsed, String endpoint) {
+        return new RateLimitDecision(allowed,
+                new RateLimitInfo(remaining, resetEpochSeconds(elapsed), capacity, endpoint));
+    }
+
+    @Override
+    public int getAvailableTokens() {
+        long elapsed = System.nanoTime() - origin;
+        long current = state;
+        return current >>> 32 == (elapsed / windowNanos & 0xFFFFFFFFL) ? capacity - (int) current : capacity;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Epoch second at which the current window ends.
+     */
+    @Override
+    public long getResetTimeEpochSeconds() {
+        return resetEpochSeconds(System.nanoTime() - origin);
+    }
+
+    private long resetEpochSeconds(long elapsed) {
+        long untilNextWindow = windowNanos - elapsed % windowNanos;
+        return System.currentTimeMillis() / 1000 + (untilNextWindow + 999_999_999L) / 1_000_000_000L;
+    }
+}
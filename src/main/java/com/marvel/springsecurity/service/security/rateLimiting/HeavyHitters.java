@@ -0,0 +1,134 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-saving sketch of the most frequent items in a stream, in fixed memory.
+ * Keeps at most capacity counters; an unseen item takes over the smallest counter
+ * and inherits its count as the possible overestimate (error). Every item seen more
+ * than total / capacity times is guaranteed to be in the sketch, and its true count
+ * lies between count - error and count.
+ * <p>
+ * Items are spread by hash over independent stripes, each a sketch of the given
+ * capacity behind its own lock, so concurrent offers rarely contend; an item always
+ * lands in the same stripe, so the guarantees above hold per stripe. With a half-life,
+ * all counts are halved each time it passes, so clients that stopped hitting limits
+ * drop out of the top instead of staying there until restart.
+ */
+public final class HeavyHitters<T> {
+
+    public record Entry<T>(T item, long count, long error) {
+    }
+
+    private final int capacity;
+    private final Stripe<T>[] stripes;
+
+    public HeavyHitters(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param halfLifeNanos time after which counts are halved; 0 to never decay
+     */
+    public HeavyHitters(int capacity, long halfLifeNanos) {
+        this.capacity = Math.max(1, capacity);
+        int stripeCount = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()));
+        this.stripes = newStripes(stripeCount);
+        long now = System.nanoTime();
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(this.capacity, halfLifeNanos, now);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Stripe<T>[] newStripes(int count) {
+        return (Stripe<T>[]) new Stripe<?>[count];
+    }
+
+    public void offer(T item) {
+        int h = item.hashCode();
+        stripes[(h ^ h >>> 16) & (stripes.length - 1)].offer(item, System.nanoTime());
+    }
+
+    /**
+     * Tracked items, most frequent first; at most capacity of them.
+     */
+    public List<Entry<T>> top() {
+        long now = System.nanoTime();
+        List<Entry<T>> entries = new ArrayList<>();
+        for (Stripe<T> stripe : stripes) {
+            stripe.collect(entries, now);
+        }
+        entries.sort(Comparator.comparingLong((Entry<T> entry) -> entry.count()).reversed());
+        return entries.size() > capacity ? List.copyOf(entries.subList(0, capacity)) : entries;
+    }
+
+    private static final class Stripe<T> {
+
+        private final int capacity;
+        private final long halfLifeNanos;
+        // item -> {count, error}; guarded by this
+        private final Map<T, long[]> counters;
+        private long lastDecayNanos;
+
+        Stripe(int capacity, long halfLifeNanos, long now) {
+            this.capacity = capacity;
+            this.halfLifeNanos = halfLifeNanos;
+            this.counters = new HashMap<>(capacity * 2);
+            this.lastDecayNanos = now;
+        }
+
+        synchronized void offer(T item, long now) {
+            decay(now);
+            long[] counter = counters.get(item);
+            if (counter != null) {
+                counter[0]++;
+                return;
+            }
+            if (counters.size() < capacity) {
+                counters.put(item, new long[]{1, 0});
+                return;
+            }
+
+            // O(capacity) scan: capacity is small and this only runs for rejected requests
+            T minItem = null;
+            long[] min = null;
+            for (Map.Entry<T, long[]> entry : counters.entrySet()) {
+                if (min == null || entry.getValue()[0] < min[0]) {
+                    minItem = entry.getKey();
+                    min = entry.getValue();
+                }
+            }
+            counters.remove(minItem);
+            min[1] = min[0];
+            min[0]++;
+            counters.put(item, min);
+        }
+
+        synchronized void collect(List<Entry<T>> entries, long now) {
+            decay(now);
+            counters.forEach((item, counter) -> entries.add(new Entry<>(item, counter[0], counter[1])));
+        }
+
+        private void decay(long now) {
+            if (halfLifeNanos <= 0) {
+                return;
+            }
+            long halvings = (now - lastDecayNanos) / halfLifeNanos;
+            if (halvings <= 0) {
+                return;
+            }
+            lastDecayNanos += halvings * halfLifeNanos;
+            int shift = (int) Math.min(halvings, 63);
+            counters.values().removeIf(counter -> {
+                counter[0] >>>= shift;
+                counter[1] >>>= shift;
+                return counter[0] == 0;
+            });
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of IPv4/IPv6 addresses and CIDR ranges that bypass rate limiting.
+ * Entries are compiled at startup into one binary prefix trie per address family,
+ * stored as flat int arrays; a lookup parses the address in place (no splitting,
+ * no DNS) and walks at most 32 or 128 nodes. IPv4-mapped IPv6 addresses
+ * (::ffff:a.b.c.d) are matched against the IPv4 entries.
+ */
+public final class IpWhitelist {
+
+    private final Trie ipv4;
+    private final Trie ipv6;
+
+    private IpWhitelist(Trie ipv4, Trie ipv6) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+    }
+
+    /**
+     * Compile a comma separated list of addresses and CIDR ranges,
+     * e.g. "10.0.0.0/8, 203.0.113.7, 2001:db8::/32". Blank entries are ignored.
+     *
+     * @throws IllegalArgumentException if an entry is not a valid address or range
+     */
+    public static IpWhitelist parse(String entries) {
+        TrieBuilder ipv4 = new TrieBuilder();
+        TrieBuilder ipv6 = new TrieBuilder();
+        if (entries != null) {
+            for (String raw : entries.split(",")) {
+                String entry = raw.trim();
+                if (!entry.isEmpty()) {
+                    add(entry, ipv4, ipv6);
+                }
+            }
+        }
+        return new IpWhitelist(ipv4.build(), ipv6.build());
+    }
+
+    private static void add(String entry, TrieBuilder ipv4, TrieBuilder ipv6) {
+        int slash = entry.indexOf('/');
+        int end = slash >= 0 ? slash : entry.length();
+        long v4 = parseIpv4(entry, 0, end);
+        if (v4 >= 0) {
+            int prefix = slash >= 0 ? parsePrefix(entry, slash + 1, 32) : 32;
+            ipv4.insert(new byte[]{(byte) (v4 >>> 24), (byte) (v4 >>> 16), (byte) (v4 >>> 8), (byte) v4}, prefix);
+            return;
+        }
+        byte[] v6 = parseIpv6(entry, 0, end);
+        if (v6 == null) {
+            throw new IllegalArgumentException("Invalid whitelist entry: " + entry);
+        }
+        int prefix = slash >= 0 ? parsePrefix(entry, slash + 1, 128) : 128;
+        ipv6.insert(v6, prefix);
+    }
+
+    private static int parsePrefix(String entry, int start, int max) {
+        int prefix = 0;
+        if (start == entry.length() || entry.length() - start > 3) {
+            throw new IllegalArgumentException("Invalid prefix length in whitelist entry: " + entry);
+        }
+        for (int i = start; i < entry.length(); i++) {
+            char c = entry.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid prefix length in whitelist entry: " + entry);
+            }
+            prefix = prefix * 10 + (c - '0');
+        }
+        if (prefix > max) {
+            throw new IllegalArgumentException("Invalid prefix length in whitelist entry: " + entry);
+        }
+        return prefix;
+    }
+
+    /**
+     * Whether the address (IPv4 or IPv6 literal) is whitelisted. Anything that is not
+     * an address literal, including null, is not.
+     */
+    public boolean contains(String address) {
+        if (address == null || address.isEmpty()) {
+            return false;
+        }
+        int end = address.length();
+        if (address.indexOf(':') < 0) {
+            long v4 = parseIpv4(address, 0, end);
+            return v4 >= 0 && ipv4.matchesIpv4((int) v4);
+        }
+
+        // Zone id (fe80::1%eth0) does not take part in matching
+        int zone = address.indexOf('%');
+        byte[] v6 = parseIpv6(address, 0, zone >= 0 ? zone : end);
+        if (v6 == null) {
+            return false;
+        }
+        return matchesIpv6(toLong(v6, 0), toLong(v6, 8));
+    }
+
+    /**
+     * Whether the client is a whitelisted IP address; emails and other keys never are.
+     */
+    public boolean contains(ClientKey key) {
+        if (key == null) {
+            return false;
+        }
+        if (key.isIpv4()) {
+            return ipv4.matchesIpv4(key.ipv4());
+        }
+        return key.isIpv6() && matchesIpv6(key.high(), key.low());
+    }
+
+    private boolean matchesIpv6(long hi, long lo) {
+        // IPv4-mapped (::ffff:a.b.c.d) addresses also match IPv4 entries
+        if (hi == 0 && lo >>> 32 == 0xFFFFL && ipv4.matchesIpv4((int) lo)) {
+            return true;
+        }
+        return ipv6.matchesIpv6(hi, lo);
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = value << 8 | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Parse dotted-quad IPv4 in [start, end) as an unsigned 32-bit value, or -1 if invalid.
+     */
+    static long parseIpv4(CharSequence s, int start, int end) {
+        long address = 0;
+        int octets = 0;
+        int i = start;
+        while (octets < 4) {
+            int value = 0;
+            int digits = 0;
+            while (i < end && digits < 4) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 3 || value > 255) {
+                return -1;
+            }
+            address = address << 8 | value;
+            octets++;
+            if (octets < 4) {
+                if (i >= end || s.charAt(i) != '.') {
+                    return -1;
+                }
+                i++;
+            }
+        }
+        return i == end ? address : -1;
+    }
+
+    /**
+     * Parse an IPv6 literal in [start, end), including "::" compression and an embedded
+     * IPv4 tail, into 16 bytes; null if invalid.
+     */
+    static byte[] parseIpv6(CharSequence s, int start, int end) {
+        byte[] out = new byte[16];
+        int groups = 0;
+        int gapAt = -1;
+        int i = start;
+        if (i < end && s.charAt(i) == ':') {
+            if (i + 1 >= end || s.charAt(i + 1) != ':') {
+                return null;
+            }
+            gapAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (groups == 8) {
+                return null;
+            }
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            while (i < end && digits <= 4) {
+                int hex = Character.digit(s.charAt(i), 16);
+                if (hex < 0) {
+                    break;
+                }
+                value = value << 4 | hex;
+                digits++;
+                i++;
+            }
+            if (i < end && s.charAt(i) == '.') {
+                // Embedded IPv4 tail (::ffff:10.0.0.1) takes the last two groups
+                long v4 = groups <= 6 ? parseIpv4(s, groupStart, end) : -1;
+                if (v4 < 0) {
+                    return null;
+                }
+                out[groups * 2] = (byte) (v4 >>> 24);
+                out[groups * 2 + 1] = (byte) (v4 >>> 16);
+                out[groups * 2 + 2] = (byte) (v4 >>> 8);
+                out[groups * 2 + 3] = (byte) v4;
+                groups += 2;
+                i = end;
+                break;
+            }
+            if (digits == 0 || digits > 4) {
+                return null;
+            }
+            out[groups * 2] = (byte) (value >>> 8);
+            out[groups * 2 + 1] = (byte) value;
+            groups++;
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i) != ':') {
+                return null;
+            }
+            i++;
+            if (i < end && s.charAt(i) == ':') {
+                if (gapAt >= 0) {
+                    return null; // "::" may appear only once
+                }
+                gapAt = groups;
+                i++;
+            } else if (i == end) {
+                return null; // trailing single colon
+            }
+        }
+
+        if (gapAt < 0) {
+            return groups == 8 ? out : null;
+        }
+        if (groups == 8) {
+            return null; // "::" has to stand for at least one group
+        }
+        // Move the groups after "::" to the end and zero the gap
+        int tail = (groups - gapAt) * 2;
+        System.arraycopy(out, gapAt * 2, out, 16 - tail, tail);
+        Arrays.fill(out, gapAt * 2, 16 - tail, (byte) 0);
+        return out;
+    }
+
+    /**
+     * Binary trie in flat arrays: node n has children child[2n] (bit 0) and child[2n + 1]
+     * (bit 1), 0 meaning none (the root is never a child); terminal[n] marks the end of a range.
+     */
+    private record Trie(int[] child, boolean[] terminal) {
+
+        boolean matchesIpv4(int address) {
+            int node = 0;
+            for (int bit = 31; bit >= 0; bit--) {
+                if (terminal[node]) {
+                    return true;
+                }
+                node = child[2 * node + (address >>> bit & 1)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+
+        boolean matchesIpv6(long hi, long lo) {
+            int node = 0;
+            for (int bit = 0; bit < 128; bit++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                long word = bit < 64 ? hi : lo;
+                node = child[2 * node + (int) (word >>> (63 - (bit & 63)) & 1)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+    }
+
+    private static final class TrieBuilder {
+        private int[] child = new int[64];
+        private boolean[] terminal = new boolean[32];
+        private int size = 1;
+
+        void insert(byte[] address, int prefix) {
+            int node = 0;
+            for (int bit = 0; bit < prefix; bit++) {
+                if (terminal[node]) {
+                    return; // already covered by a shorter range
+                }
+                int slot = 2 * node + (address[bit >>> 3] >>> (7 - (bit & 7)) & 1);
+                if (child[slot] == 0) {
+                    // Allocate first: newNode() may replace the child array
+                    int created = newNode();
+                    child[slot] = created;
+                }
+                node = child[slot];
+            }
+            terminal[node] = true;
+        }
+
+        private int newNode() {
+            if (size == terminal.length) {
+                terminal = Arrays.copyOf(terminal, size * 2);
+                child = Arrays.copyOf(child, size * 4);
+            }
+            return size++;
+        }
+
+        Trie build() {
+            return new Trie(Arrays.copyOf(child, size * 2), Arrays.copyOf(terminal, size));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for load shedding: classes of expensive endpoints, each
+ * behind its own adaptive concurrency limit (see AdaptiveConcurrencyLimiter).
+ * Endpoints outside every class are never shed.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "load-shedding")
+public class LoadSheddingConfig {
+
+    private boolean enabled = true;
+    private int retryAfterSeconds = 1;
+
+    // Default classes: endpoints hashing or checking passwords with BCrypt. Each class
+    // learns one no-load latency, so endpoints doing different amounts of work (a login
+    // checks one hash, a registration also writes the user and sends mail) are kept apart
+    private Map<String, EndpointClass> classes = new LinkedHashMap<>(Map.of(
+            "login", new EndpointClass(List.of("/api/login")),
+            "register", new EndpointClass(List.of("/api/register")),
+            "password", new EndpointClass(List.of("/api/user/update-password", "/api/update/reset-password"))
+    ));
+
+    @Data
+    public static class EndpointClass {
+        private List<String> paths = new ArrayList<>();
+        // By default a class never runs more requests at once than there are cores
+        private int initialLimit = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int minLimit = 1;
+        private int maxLimit = Runtime.getRuntime().availableProcessors();
+        // Latency above no-load latency times this factor counts as overload
+        private double latencyTolerance = 1.5;
+
+        public EndpointClass() {
+        }
+
+        public EndpointClass(List<String> paths) {
+            this.paths = new ArrayList<>(paths);
+        }
+    }
+}
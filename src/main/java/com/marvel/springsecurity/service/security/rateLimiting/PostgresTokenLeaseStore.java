@@ -0,0 +1,53 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import com.marvel.springsecurity.model.RateLimitBucket;
+import com.marvel.springsecurity.repo.RateLimitBucketRepo;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token lease store on the rate_limit_bucket table. Each lease is a single
+ * INSERT ... ON CONFLICT DO UPDATE ... RETURNING, so concurrent instances never
+ * hand out the same tokens twice.
+ */
+@Component
+@ConditionalOnProperty(name = "ratelimit.backend", havingValue = "postgres")
+public class PostgresTokenLeaseStore implements TokenLeaseStore {
+
+    private final RateLimitBucketRepo repo;
+
+    public PostgresTokenLeaseStore(RateLimitBucketRepo repo) {
+        this.repo = repo;
+    }
+
+    @Override
+    public Lease lease(String identifier, int routeId, int requested, long intervalMillis, long burstMillis, long nowMillis) {
+        // Grant for a bucket that does not exist yet (i.e. is full)
+        int firstGrant = (int) Math.min(requested, burstMillis / intervalMillis);
+        RateLimitBucketRepo.LeaseResult result = repo.lease(identifier, routeId, requested, firstGrant,
+                intervalMillis, burstMillis, nowMillis);
+        return new Lease(result.getGranted(), result.getTatMillis());
+    }
+
+    @Override
+    public Map<Integer, Long> arrivalTimes(String identifier) {
+        Map<Integer, Long> arrivalTimes = new HashMap<>();
+        for (RateLimitBucket bucket : repo.findByIdentifier(identifier)) {
+            arrivalTimes.put(bucket.getRouteId(), bucket.getTatMillis());
+        }
+        return arrivalTimes;
+    }
+
+    @Override
+    public void reset(String identifier) {
+        repo.deleteByIdentifier(identifier);
+    }
+
+    @Override
+    public int purgeRefilled(long nowMillis) {
+        return repo.deleteRefilled(nowMillis);
+    }
+}
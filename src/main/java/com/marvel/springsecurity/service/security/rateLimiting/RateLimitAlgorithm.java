@@ -0,0 +1,34 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+/**
+ * Algorithm used to enforce an endpoint limit, set per limit
+ * (e.g. ratelimit.resend.algorithm=sliding-window).
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * Continuously refilling bucket: smooth, but a full bucket allows a burst of the whole limit.
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * Counter reset at fixed window boundaries: cheapest, but allows up to twice the
+     * limit around a boundary.
+     */
+    FIXED_WINDOW,
+
+    /**
+     * Current and previous window counters, the previous one weighted by how much of it
+     * still overlaps the sliding window: no refill bursts and no boundary doubling.
+     * Limited to 65535 requests per window.
+     */
+    SLIDING_WINDOW;
+
+    public RateLimitState newState(int capacity, int windowSeconds) {
+        return switch (this) {
+            case TOKEN_BUCKET -> new TokenBucket(capacity, windowSeconds);
+            case FIXED_WINDOW -> new FixedWindowCounter(capacity, windowSeconds);
+            case SLIDING_WINDOW -> new SlidingWindowCounter(capacity, windowSeconds);
+        };
+    }
+}
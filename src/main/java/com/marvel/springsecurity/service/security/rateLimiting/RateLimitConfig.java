@@ -4,8 +4,12 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Configuration properties for rate limiting.
@@ -23,16 +27,19 @@ public class RateLimitConfig {
     private CacheSettings cache = new CacheSettings();
 
     // Endpoint-specific configurations (defaults shown)
-    private EndpointLimit register = new EndpointLimit(5, 3600); // 5 per hour
+    private EndpointLimit register = new EndpointLimit(5, 3600, RateLimitAlgorithm.SLIDING_WINDOW); // 5 per hour, no refill burst
     private EndpointLimit login = new EndpointLimit(10, 900); // 10 per 15 minutes
     private EndpointLimit verify = new EndpointLimit(5, 3600); // 5 per hour
-    private EndpointLimit resend = new EndpointLimit(1, 300); // 1 per 5 minutes
+    private EndpointLimit resend = new EndpointLimit(1, 300, RateLimitAlgorithm.SLIDING_WINDOW); // 1 per 5 minutes, no refill burst
     private EndpointLimit resetPassword = new EndpointLimit(3, 3600); // 3 per hour
     private EndpointLimit available = new EndpointLimit(20, 60); // 20 per minute
     private EndpointLimit oauth = new EndpointLimit(10, 3600); // 10 per hour
     private EndpointLimit userUpdate = new EndpointLimit(30, 3600); // 30 per hour (general updates)
     private EndpointLimit fileUpload = new EndpointLimit(10, 3600); // 10 per hour (heavy resources)
 
+    // Cost-weighted budget shared by the public read endpoints
+    private ReadLimits read = new ReadLimits();
+
     @Data
     public static class CacheSettings {
         private int maxSize = 10000;
@@ -43,62 +50,163 @@ public class RateLimitConfig {
     public static class EndpointLimit {
         private int requests;
         private int windowSeconds;
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.TOKEN_BUCKET;
 
         public EndpointLimit() {
         }
 
         public EndpointLimit(int requests, int windowSeconds) {
-            this.requests = requests;
-            this.windowSeconds = windowSeconds;
+            this.requests = positive(requests, "requests");
+            this.windowSeconds = positive(windowSeconds, "window");
+        }
+
+        public EndpointLimit(int requests, int windowSeconds, RateLimitAlgorithm algorithm) {
+            this(requests, windowSeconds);
+            this.algorithm = algorithm;
+        }
+
+        /**
+         * Limits are divided by, so a zero or negative value fails binding at startup
+         * instead of every request.
+         */
+        public void setRequests(int requests) {
+            this.requests = positive(requests, "requests");
+        }
+
+        public void setWindowSeconds(int windowSeconds) {
+            this.windowSeconds = positive(windowSeconds, "window");
+        }
+
+        private static int positive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("Rate limit " + name + " must be positive, was " + value);
+            }
+            return value;
+        }
+
+        public RateLimitState newState() {
+            return algorithm.newState(requests, windowSeconds);
         }
     }
 
     /**
-     * Get rate limit configuration for a specific endpoint.
+     * Public reads draw from one per-client token budget instead of a per-endpoint limit:
+     * a request costs its endpoint's base cost plus one token for every further block of
+     * itemsPerToken requested items, so a 100 item page costs what 5 pages of 20 do.
+     * Page sizes above maxPageSize are rejected outright.
+     */
+    @Data
+    public static class ReadLimits {
+        private boolean enabled = true;
+        private EndpointLimit budget = new EndpointLimit(300, 60); // 300 tokens per minute
+        private int maxPageSize = 100;
+        private int itemsPerToken = 20;
+        // Base cost per GET path pattern; bind as ratelimit.read.costs[/api/books]=1
+        private Map<String, Integer> costs = new LinkedHashMap<>(Map.of(
+                "/api/books", 1,
+                "/api/books/search", 3, // LIKE scans over title and author
+                "/api/bookid/**", 1,
+                "/api/book/*/comment", 1,
+                "/api/book/*/ratings", 1
+        ));
+        // Page size charged when a request has no size parameter: the controller's default
+        private Map<String, Integer> defaultPageSizes = new LinkedHashMap<>(Map.of(
+                "/api/books", 20,
+                "/api/books/search", 30
+        ));
+
+        public int costOf(int baseCost, int pageSize) {
+            return baseCost + Math.max(0, pageSize - 1) / Math.max(1, itemsPerToken);
+        }
+    }
+
+    // Routing table: built once, ordered longest path first so the most specific
+    // route wins (/user/update-profile-pic before the /user catch-all)
+    private static final List<RateLimitRoute> ROUTES = buildRoutes(List.of(
+            route("/register", RateLimitConfig::getRegister),
+            route("/login", RateLimitConfig::getLogin),
+            route("/register/verify-email", RateLimitConfig::getVerify),
+            route("/register/resend-verification", RateLimitConfig::getResend),
+            route("/update/reset-password", RateLimitConfig::getResetPassword),
+            route("/available/username", RateLimitConfig::getAvailable),
+            route("/available/mail", RateLimitConfig::getAvailable),
+            route("/oauth/callback", RateLimitConfig::getOauth),
+            route("/validate/verify-email", RateLimitConfig::getVerify),
+            route("/validate/forgot-password", RateLimitConfig::getResetPassword),
+            route("/forgot-password", RateLimitConfig::getResetPassword), // Password reset request - 3/hr
+            route("/resend-verification", RateLimitConfig::getResend), // Email resend - 1/5min
+            route("/oauth/submit-email", RateLimitConfig::getRegister), // OAuth email - 5/hr
+
+            // User Profile Updates
+            route("/user/update-profile-pic", RateLimitConfig::getFileUpload), // Heavy resource - 10/hr
+            route("/user/update-password", RateLimitConfig::getResetPassword), // Sensitive - match reset limits (3/hr)
+            route("/user", RateLimitConfig::getUserUpdate) // Catch-all for other /user endpoints (update name, username)
+    ));
+
+    // The read budget has a bucket slot like any route but is charged by cost, never matched by path
+    private static final RateLimitRoute READS = new RateLimitRoute(ROUTES.size(), "/reads",
+            config -> config.getRead().getBudget());
+
+    private static final List<RateLimitRoute> ALL_ROUTES = buildAllRoutes();
+
+    private static RateLimitRoute route(String path, Function<RateLimitConfig, EndpointLimit> limit) {
+        return new RateLimitRoute(-1, path, limit);
+    }
+
+    private static List<RateLimitRoute> buildRoutes(List<RateLimitRoute> declared) {
+        // Ids follow declaration order
+        List<RateLimitRoute> routes = new ArrayList<>(declared.size());
+        for (int i = 0; i < declared.size(); i++) {
+            routes.add(new RateLimitRoute(i, declared.get(i).path(), declared.get(i).limitSelector()));
+        }
+        routes.sort(Comparator.comparingInt((RateLimitRoute route) -> route.path().length()).reversed());
+        return List.copyOf(routes);
+    }
+
+    private static List<RateLimitRoute> buildAllRoutes() {
+        List<RateLimitRoute> routes = new ArrayList<>(ROUTES);
+        routes.add(READS);
+        return List.copyOf(routes);
+    }
+
+    /**
+     * All routes of the table, longest path first, followed by the read budget.
+     */
+    public static List<RateLimitRoute> routes() {
+        return ALL_ROUTES;
+    }
+
+    /**
+     * The route holding the per-client budget of public reads (ratelimit.read).
+     */
+    public static RateLimitRoute readRoute() {
+        return READS;
+    }
+
+    /**
+     * Find the route for an endpoint by longest prefix match, without allocating.
      * Returns null if endpoint is not rate limited.
      */
-    public EndpointLimit getConfigForEndpoint(String endpoint) {
+    public RateLimitRoute resolveRoute(String endpoint) {
         if (endpoint == null)
             return null;
 
-        // Normalize endpoint (remove /api prefix if present)
-        String normalizedEndpoint = endpoint.startsWith("/api")
-                ? endpoint.substring(4)
-                : endpoint;
-
-        // Map endpoints to configurations
-        Map<String, EndpointLimit> endpointMap = new HashMap<>();
-        endpointMap.put("/register", register);
-        endpointMap.put("/login", login);
-        endpointMap.put("/register/verify-email", verify);
-        endpointMap.put("/register/resend-verification", resend);
-        endpointMap.put("/update/reset-password", resetPassword);
-        endpointMap.put("/available/username", available);
-        endpointMap.put("/available/mail", available);
-        endpointMap.put("/oauth/callback", oauth);
-        endpointMap.put("/validate/verify-email", verify);
-        endpointMap.put("/validate/forgot-password", resetPassword);
-        endpointMap.put("/forgot-password", resetPassword); // Password reset request - 3/hr
-        endpointMap.put("/resend-verification", resend); // Email resend - 1/5min
-        endpointMap.put("/oauth/submit-email", register); // OAuth email - 5/hr
-
-        // User Profile Updates
-        endpointMap.put("/user/update-profile-pic", fileUpload); // Heavy resource - 10/hr
-        endpointMap.put("/user/update-password", resetPassword); // Sensitive - match reset limits (3/hr)
-        endpointMap.put("/user", userUpdate); // Catch-all for other /user endpoints (update name, username)
-
-        // Check for exact match
-        if (endpointMap.containsKey(normalizedEndpoint)) {
-            return endpointMap.get(normalizedEndpoint);
-        }
-
-        // Check for partial matches (e.g., /register/* matches /register)
-        for (Map.Entry<String, EndpointLimit> entry : endpointMap.entrySet()) {
-            if (normalizedEndpoint.startsWith(entry.getKey())) {
-                return entry.getValue();
+        // Normalize endpoint (skip /api prefix if present)
+        int offset = endpoint.startsWith("/api") ? 4 : 0;
+        for (RateLimitRoute route : ROUTES) {
+            if (route.matches(endpoint, offset)) {
+                return route;
             }
         }
-
         return null; // No rate limit for this endpoint
     }
-}
\ No newline at end of file
+
+    /**
+     * Get rate limit configuration for a specific endpoint.
+     * Returns null if endpoint is not rate limited.
+     */
+    public EndpointLimit getConfigForEndpoint(String endpoint) {
+        RateLimitRoute route = resolveRoute(endpoint);
+        return route != null ? route.limitIn(this) : null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+/**
+ * Outcome of a single rate limit check, together with the limit state right after it.
+ * Both come from the same bucket update, so response headers always match the decision.
+ */
+public record RateLimitDecision(
+        boolean allowed,
+        RateLimitInfo info
+) {
+
+    public static RateLimitDecision unlimited(String endpoint) {
+        return new RateLimitDecision(true, new RateLimitInfo(Integer.MAX_VALUE, 0, Integer.MAX_VALUE, endpoint));
+    }
+}
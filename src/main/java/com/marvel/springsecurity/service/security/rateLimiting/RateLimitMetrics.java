@@ -0,0 +1,96 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter outcomes: allowed/rejected counters per route (Micrometer
+ * ratelimit.requests, tags endpoint and outcome), a space-saving sketch of the most
+ * limited clients (counts halve every offender-half-life-ms), and rejection logging
+ * sampled to one summary line per interval instead of one WARN per rejected request.
+ */
+@Slf4j
+@Component
+public class RateLimitMetrics {
+
+    public record EndpointCounts(String endpoint, long allowed, long rejected) {
+    }
+
+    public record Offender(String identifier, long rejected, long error) {
+    }
+
+    private final Counter[] allowed;
+    private final Counter[] rejected;
+    private final String[] endpoints;
+    private final HeavyHitters<ClientKey> offenders;
+    private final long logIntervalNanos;
+    private final AtomicLong rejectedSinceLog = new AtomicLong();
+    private final AtomicLong nextLogAt;
+
+    public RateLimitMetrics(MeterRegistry meterRegistry,
+                            @Value("${ratelimit.metrics.top-offenders:20}") int topOffenders,
+                            @Value("${ratelimit.metrics.log-interval-ms:10000}") long logIntervalMillis,
+                            @Value("${ratelimit.metrics.offender-half-life-ms:600000}") long offenderHalfLifeMillis) {
+        List<RateLimitRoute> routes = RateLimitConfig.routes();
+        this.allowed = new Counter[routes.size()];
+        this.rejected = new Counter[routes.size()];
+        this.endpoints = new String[routes.size()];
+        for (RateLimitRoute route : routes) {
+            String endpoint = "/api" + route.path();
+            endpoints[route.id()] = endpoint;
+            allowed[route.id()] = Counter.builder("ratelimit.requests")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", "allowed")
+                    .register(meterRegistry);
+            rejected[route.id()] = Counter.builder("ratelimit.requests")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", "rejected")
+                    .register(meterRegistry);
+        }
+        this.offenders = new HeavyHitters<>(topOffenders, TimeUnit.MILLISECONDS.toNanos(offenderHalfLifeMillis));
+        this.logIntervalNanos = TimeUnit.MILLISECONDS.toNanos(logIntervalMillis);
+        this.nextLogAt = new AtomicLong(System.nanoTime());
+    }
+
+    public void record(RateLimitRoute route, ClientKey key, boolean wasAllowed) {
+        if (wasAllowed) {
+            allowed[route.id()].increment();
+            return;
+        }
+        rejected[route.id()].increment();
+        offenders.offer(key);
+        rejectedSinceLog.incrementAndGet();
+
+        long now = System.nanoTime();
+        long due = nextLogAt.get();
+        // One thread per interval wins the CAS and writes the summary
+        if (now - due >= 0 && nextLogAt.compareAndSet(due, now + logIntervalNanos)) {
+            long count = rejectedSinceLog.getAndSet(0);
+            List<HeavyHitters.Entry<ClientKey>> top = offenders.top();
+            log.warn("Rate limit exceeded {} times since last report (last: {} on {}); top limited clients: {}",
+                    count, key, endpoints[route.id()], top.subList(0, Math.min(3, top.size())));
+        }
+    }
+
+    public List<EndpointCounts> endpointCounts() {
+        List<EndpointCounts> counts = new ArrayList<>(endpoints.length);
+        for (int id = 0; id < endpoints.length; id++) {
+            counts.add(new EndpointCounts(endpoints[id], (long) allowed[id].count(), (long) rejected[id].count()));
+        }
+        return counts;
+    }
+
+    public List<Offender> topOffenders() {
+        return offenders.top().stream()
+                .map(entry -> new Offender(entry.item().toString(), entry.count(), entry.error()))
+                .toList();
+    }
+}
@@ -0,0 +1,25 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.util.function.Function;
+
+/**
+ * One entry of the rate limit routing table: a path prefix (without the /api prefix)
+ * and the property holding its limit. The id is the route's position in the table
+ * and is stable for the lifetime of the application.
+ */
+public record RateLimitRoute(int id, String path, Function<RateLimitConfig, RateLimitConfig.EndpointLimit> limitSelector) {
+
+    /**
+     * The limit currently bound to this route; read live so property changes apply without a rebuild.
+     */
+    public RateLimitConfig.EndpointLimit limitIn(RateLimitConfig config) {
+        return limitSelector.apply(config);
+    }
+
+    /**
+     * Whether the endpoint, starting at offset (after an /api prefix), starts with this route's path.
+     */
+    boolean matches(String endpoint, int offset) {
+        return endpoint.startsWith(path, offset);
+    }
+}
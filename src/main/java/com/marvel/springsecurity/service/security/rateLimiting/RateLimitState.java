@@ -0,0 +1,34 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+/**
+ * Per-client, per-route limiter state. Implementations are lock-free and keep their
+ * mutable state in a single long, so each one costs about 40 bytes of heap.
+ */
+public sealed interface RateLimitState permits TokenBucket, FixedWindowCounter, SlidingWindowCounter {
+
+    /**
+     * Try to consume one request. Returns true if allowed.
+     */
+    boolean tryConsume();
+
+    /**
+     * Try to consume one request and capture the state produced by that same update.
+     */
+    default RateLimitDecision tryAcquire(String endpoint) {
+        return tryAcquire(endpoint, 1);
+    }
+
+    /**
+     * Try to consume cost requests at once (all or nothing), for cost-weighted limits.
+     */
+    RateLimitDecision tryAcquire(String endpoint, int cost);
+
+    int getAvailableTokens();
+
+    int getCapacity();
+
+    /**
+     * Epoch second at which the full limit is available again.
+     */
+    long getResetTimeEpochSeconds();
+}
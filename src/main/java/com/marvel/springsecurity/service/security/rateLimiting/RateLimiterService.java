@@ -1,7 +1,53 @@
 package com.marvel.springsecurity.service.security.rateLimiting;
 
+import java.util.List;
+import java.util.Map;
+
 public interface RateLimiterService {
-    boolean allowRequest(String key, String endpoint);
-    RateLimitInfo getLimitInfo(String key, String endpoint);
-    void resetLimit(String key);
+    boolean allowRequest(ClientKey key, String endpoint);
+    RateLimitInfo getLimitInfo(ClientKey key, String endpoint);
+    void resetLimit(ClientKey key);
+
+    /**
+     * Consume a token and report the resulting limit state in one step.
+     */
+    RateLimitDecision tryAcquire(ClientKey key, String endpoint);
+
+    /**
+     * Charge a public read against the client's read budget (ratelimit.read), cost tokens at once.
+     */
+    RateLimitDecision tryAcquireRead(ClientKey key, String endpoint, int cost);
+
+    /**
+     * Current state of every limit a client has used, one entry per rate limited route.
+     */
+    List<RateLimitInfo> inspect(ClientKey key);
+
+    Map<String, Object> getCacheStats();
+
+    // Identifier forms ("ip:203.0.113.7", "email:user@example.com"), see ClientKey.parse
+
+    default boolean allowRequest(String key, String endpoint) {
+        return allowRequest(ClientKey.parse(key), endpoint);
+    }
+
+    default RateLimitInfo getLimitInfo(String key, String endpoint) {
+        return getLimitInfo(ClientKey.parse(key), endpoint);
+    }
+
+    default void resetLimit(String key) {
+        resetLimit(ClientKey.parse(key));
+    }
+
+    default RateLimitDecision tryAcquire(String key, String endpoint) {
+        return tryAcquire(ClientKey.parse(key), endpoint);
+    }
+
+    default RateLimitDecision tryAcquireRead(String key, String endpoint, int cost) {
+        return tryAcquireRead(ClientKey.parse(key), endpoint, cost);
+    }
+
+    default List<RateLimitInfo> inspect(String key) {
+        return inspect(ClientKey.parse(key));
+    }
 }
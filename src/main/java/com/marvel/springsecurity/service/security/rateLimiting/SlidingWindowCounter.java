@@ -0,0 +1,131 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding window counter: the request count of the last window is estimated as the
+ * current fixed window's count plus the previous window's count weighted by how much
+ * of it is still inside the sliding window. Unlike a token bucket there is no refill
+ * burst, and unlike a fixed window no doubling at the window boundary.
+ * <p>
+ * Window index (high 32 bits), current count (16 bits) and previous count (16 bits)
+ * are packed into one long and updated with a single CAS, which caps the capacity
+ * at 65535 requests per window. The window only ever moves forward.
+ */
+public final class SlidingWindowCounter implements RateLimitState {
+
+    static final int MAX_CAPACITY = 0xFFFF;
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(SlidingWindowCounter.class, "state", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity;
+    private final long windowNanos;
+    private final long origin;
+    private volatile long state;
+
+    public SlidingWindowCounter(int capacity, int windowSeconds) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "Sliding window limits allow at most " + MAX_CAPACITY + " requests per window, got " + capacity);
+        }
+        this.capacity = capacity;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(1, windowSeconds));
+        this.origin = System.nanoTime();
+    }
+
+    @Override
+    public boolean tryConsume() {
+        return tryAcquire(null).allowed();
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String endpoint, int cost) {
+        while (true) {
+            // Time is read after the state (and again on every retry), so it is never older
+            // than the time the state was written with and the state never moves back a window
+            long current = state;
+            long elapsed = System.nanoTime() - origin;
+            long window = elapsed / windowNanos & 0xFFFFFFFFL;
+            long offset = elapsed % windowNanos;
+            if ((int) ((current >>> 32) - window) > 0) {
+                // State is already in a later window: count from that window's start
+                window = current >>> 32;
+                offset = 0;
+            }
+            double previousWeight = 1.0 - (double) offset / windowNanos;
+            long rolled = roll(current, window);
+            int count = (int) (rolled >>> 16 & MAX_CAPACITY);
+            int previous = (int) (rolled & MAX_CAPACITY);
+            double estimate = previous * previousWeight + count;
+            // Allowed only if the count stays within capacity, so it never overflows its 16 bits
+            if (estimate + cost > capacity) {
+                return decision(false, remaining(estimate), rolled, elapsed, endpoint);
+            }
+            long next = rolled + ((long) cost << 16);
+            if (STATE.compareAndSet(this, current, next)) {
+                return decision(true, remaining(estimate + cost), next, elapsed, endpoint);
+            }
+        }
+    }
+
+    /**
+     * State moved forward to the given window: the current count becomes the previous one
+     * when exactly one window has passed, and both are dropped when more have.
+     */
+    private static long roll(long state, long window) {
+        long stateWindow = state >>> 32;
+        if (stateWindow == window) {
+            return state;
+        }
+        long previous = stateWindow + 1 == window ? state >>> 16 & MAX_CAPACITY : 0;
+        return window << 32 | previous;
+    }
+
+    private int remaining(double estimate) {
+        return (int) Math.max(0, Math.floor(capacity - estimate));
+    }
+
+    private RateLimitDecision decision(boolean allowed, int remaining, long state, long elapsed, String endpoint) {
+        return new RateLimitDecision(allowed,
+                new RateLimitInfo(remaining, resetEpochSeconds(state, elapsed), capacity, endpoint));
+    }
+
+    @Override
+    public int getAvailableTokens() {
+        long elapsed = System.nanoTime() - origin;
+        long rolled = roll(state, elapsed / windowNanos & 0xFFFFFFFFL);
+        double previousWeight = 1.0 - (double) (elapsed % windowNanos) / windowNanos;
+        return remaining((rolled & MAX_CAPACITY) * previousWeight + (rolled >>> 16 & MAX_CAPACITY));
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Epoch second at which no counted request is inside the sliding window any more.
+     */
+    @Override
+    public long getResetTimeEpochSeconds() {
+        long elapsed = System.nanoTime() - origin;
+        return resetEpochSeconds(roll(state, elapsed / windowNanos & 0xFFFFFFFFL), elapsed);
+    }
+
+    private long resetEpochSeconds(long state, long elapsed) {
+        long untilNextWindow = windowNanos - elapsed % windowNanos;
+        // Requests of the current window keep counting (weighted) through the next one
+        long untilClear = (state >>> 16 & MAX_CAPACITY) > 0 ? untilNextWindow + windowNanos : untilNextWindow;
+        return System.currentTimeMillis() / 1000 + (untilClear + 999_999_999L) / 1_000_000_000L;
+    }
+}
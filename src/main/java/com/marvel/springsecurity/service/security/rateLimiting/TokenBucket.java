@@ -0,0 +1,110 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock-free token bucket, implemented as GCRA (generic cell rate algorithm).
+ * Instead of a token count and a refill timestamp, the bucket keeps a single
+ * "theoretical arrival time" (TAT) in one long: each request pushes TAT one
+ * emission interval (window / capacity) further, and a request is allowed while
+ * TAT stays within one window of now. This is the same policy as a token bucket of
+ * the given capacity refilling continuously over the window, but updated with a
+ * single CAS, so a client hammering one endpoint causes no lock contention.
+ */
+public final class TokenBucket implements RateLimitState {
+
+    private static final VarHandle THEORETICAL_ARRIVAL;
+
+    static {
+        try {
+            THEORETICAL_ARRIVAL = MethodHandles.lookup()
+                    .findVarHandle(TokenBucket.class, "theoreticalArrival", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity;
+    private final long emissionIntervalNanos;
+    private final long windowNanos;
+    // Full bucket when TAT <= now; TAT - now is the time until the bucket is full again
+    // Field plus VarHandle instead of an AtomicLong: one object per bucket, not two
+    private volatile long theoreticalArrival;
+
+    public TokenBucket(int capacity, int windowSeconds) {
+        this.capacity = capacity;
+        this.emissionIntervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(windowSeconds) / Math.max(1, capacity));
+        this.windowNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrival = System.nanoTime();
+    }
+
+    /**
+     * Try to consume one token. Returns true if successful, false if bucket is empty.
+     */
+    @Override
+    public boolean tryConsume() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival;
+            // Differences rather than comparisons: nanoTime may wrap
+            long next = (tat - now > 0 ? tat : now) + emissionIntervalNanos;
+            if (next - now > windowNanos) {
+                return false;
+            }
+            if (THEORETICAL_ARRIVAL.compareAndSet(this, tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Try to consume cost tokens and capture the bucket state produced by that same update.
+     */
+    @Override
+    public RateLimitDecision tryAcquire(String endpoint, int cost) {
+        long now = System.nanoTime();
+        long increment = emissionIntervalNanos * cost;
+        while (true) {
+            long tat = theoreticalArrival;
+            long next = (tat - now > 0 ? tat : now) + increment;
+            if (next - now > windowNanos) {
+                return decision(false, tat - now, endpoint);
+            }
+            if (THEORETICAL_ARRIVAL.compareAndSet(this, tat, next)) {
+                return decision(true, next - now, endpoint);
+            }
+        }
+    }
+
+    private RateLimitDecision decision(boolean allowed, long backlogNanos, String endpoint) {
+        long backlog = Math.max(0, backlogNanos);
+        int remaining = (int) ((windowNanos - backlog) / emissionIntervalNanos);
+        long resetEpochSeconds = System.currentTimeMillis() / 1000 + (backlog + 999_999_999L) / 1_000_000_000L;
+        return new RateLimitDecision(allowed, new RateLimitInfo(remaining, resetEpochSeconds, capacity, endpoint));
+    }
+
+    @Override
+    public int getAvailableTokens() {
+        return (int) ((windowNanos - backlogNanos()) / emissionIntervalNanos);
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Epoch second at which the bucket will be full again.
+     */
+    @Override
+    public long getResetTimeEpochSeconds() {
+        long nanosUntilFull = backlogNanos();
+        return System.currentTimeMillis() / 1000 + (nanosUntilFull + 999_999_999L) / 1_000_000_000L;
+    }
+
+    private long backlogNanos() {
+        return Math.max(0, theoreticalArrival - System.nanoTime());
+    }
+}
@@ -0,0 +1,35 @@
+package com.marvel.springsecurity.service.security.rateLimiting;
+
+import java.util.Map;
+
+/**
+ * Rate limit state shared by all instances. Buckets are GCRA arrival times in epoch
+ * millis (see TokenBucket), keyed by client identifier and route id; instances take
+ * tokens in batches so the store is hit once per lease rather than once per request.
+ */
+public interface TokenLeaseStore {
+
+    /**
+     * Atomically take up to {@code requested} tokens from a bucket.
+     *
+     * @param intervalMillis time one token takes to refill (window / capacity)
+     * @param burstMillis    time the whole bucket takes to refill (the window)
+     * @return the number of tokens granted (possibly 0) and the bucket's new arrival time
+     */
+    Lease lease(String identifier, int routeId, int requested, long intervalMillis, long burstMillis, long nowMillis);
+
+    /**
+     * Arrival time of every bucket a client has, by route id.
+     */
+    Map<Integer, Long> arrivalTimes(String identifier);
+
+    void reset(String identifier);
+
+    /**
+     * Drop buckets that are full again; a missing bucket is the same as a full one.
+     */
+    int purgeRefilled(long nowMillis);
+
+    record Lease(int granted, long tatMillis) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.marvel.springsecurity.service.security.rateLimiting.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the adaptive concurrency limiter used for load shedding.
+ * Latencies are simulated by passing start times in the past.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter("auth", 4, 1, 8, 1.5, meterRegistry);
+    }
+
+    private static long startedMillisAgo(long millis) {
+        return System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    @DisplayName("Requests beyond the limit should be rejected and counted")
+    void testRejectsBeyondLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(), "Request " + (i + 1) + " should get a slot");
+        }
+        assertFalse(limiter.tryAcquire(), "5th concurrent request should be shed");
+        assertEquals(4, limiter.getInFlight());
+        assertEquals(1.0, meterRegistry.get("loadshedding.rejected").tag("class", "auth").counter().count());
+        assertEquals(4.0, meterRegistry.get("loadshedding.limit").tag("class", "auth").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Limit should grow while saturated requests stay fast")
+    void testLimitGrowsUnderHealthyLoad() {
+        for (int round = 0; round < 10; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(startedMillisAgo(100), true);
+            }
+        }
+        assertEquals(8, limiter.getLimit(), "Limit should reach the configured maximum");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Limit should be cut when latency rises above the no-load latency")
+    void testLimitShrinksWhenLatencyRises() throws InterruptedException {
+        assertTrue(limiter.tryAcquire());
+        limiter.release(System.nanoTime(), true); // near-zero no-load latency
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            long start = System.nanoTime();
+            Thread.sleep(2);
+            limiter.release(start, true);
+        }
+        assertTrue(limiter.getLimit() < 4, "Limit should have been reduced, was " + limiter.getLimit());
+        assertEquals(1, limiter.getLimit(), "Limit should stop at the minimum");
+    }
+
+    @Test
+    @DisplayName("Only one cut per round trip")
+    void testSingleCutPerRoundTrip() throws InterruptedException {
+        assertTrue(limiter.tryAcquire());
+        limiter.release(System.nanoTime(), true);
+
+        // Three slow requests that all started before the first cut
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        Thread.sleep(2);
+        for (int i = 0; i < 3; i++) {
+            limiter.release(start, true);
+        }
+        assertEquals(3, limiter.getLimit(), "4 * 0.9 rounds down to 3 after a single cut");
+    }
+
+    @Test
+    @DisplayName("Fast failures should not lower the no-load latency")
+    void testFailuresAreNotSampled() {
+        // A burst of instant rejections (e.g. malformed bodies) followed by normal logins
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(System.nanoTime(), false);
+        }
+        for (int round = 0; round < 10; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(startedMillisAgo(100), true);
+            }
+        }
+        assertEquals(8, limiter.getLimit(), "Successful requests at a steady latency should not be shed");
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,69 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.marvel.springsecurity.service.security.rateLimiting.ClientKey;
+import com.marvel.springsecurity.service.security.rateLimiting.IpWhitelist;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compact rate limit keys.
+ */
+class ClientKeyTest {
+
+    @Test
+    @DisplayName("Same address should give equal keys whatever form it was parsed from")
+    void testAddressKeysEqual() {
+        ClientKey key = ClientKey.parse("ip:203.0.113.7");
+        assertEquals(key, ClientKey.parse("203.0.113.7"));
+        assertEquals(key.hashCode(), ClientKey.parse("203.0.113.7").hashCode());
+
+        String forwarded = "203.0.113.7, 10.0.0.1";
+        assertEquals(key, ClientKey.ofAddress(forwarded, 0, forwarded.indexOf(',')));
+        assertEquals(ClientKey.parse("::1"), ClientKey.parse("0:0:0:0:0:0:0:1"));
+        assertEquals(key, ClientKey.parse("::ffff:203.0.113.7"), "IPv4-mapped form is the same client");
+        assertNotEquals(key, ClientKey.parse("203.0.113.8"));
+    }
+
+    @Test
+    @DisplayName("Text form of address keys should round-trip")
+    void testToStringRoundTrip() {
+        assertEquals("ip:203.0.113.7", ClientKey.parse("203.0.113.7").toString());
+        assertEquals("ip:2001:db8:0:0:0:0:0:1", ClientKey.parse("2001:db8::1").toString());
+        for (String identifier : new String[]{"ip:203.0.113.7", "ip:2001:db8::1", "ip:::ffff:10.0.0.1"}) {
+            ClientKey key = ClientKey.parse(identifier);
+            assertEquals(key, ClientKey.parse(key.toString()));
+        }
+    }
+
+    @Test
+    @DisplayName("Emails should be keyed by hash, never by address")
+    void testEmailKeys() {
+        ClientKey email = ClientKey.ofEmail("user@example.com");
+        assertEquals(email, ClientKey.parse("email:user@example.com"));
+        assertNotEquals(email, ClientKey.ofEmail("other@example.com"));
+        assertFalse(email.toString().contains("user@example.com"), "Email should not be kept in clear");
+        assertFalse(IpWhitelist.parse("0.0.0.0/0, ::/0").contains(email), "Emails are never whitelisted");
+    }
+
+    @Test
+    @DisplayName("Text form of hashed keys should round-trip without being hashed again")
+    void testHashedKeyRoundTrip() {
+        ClientKey email = ClientKey.ofEmail("user@example.com");
+        assertTrue(email.toString().startsWith("email#"));
+        assertEquals(email, ClientKey.parse(email.toString()));
+
+        ClientKey other = ClientKey.parse("unknown");
+        assertTrue(other.toString().startsWith("other#"));
+        assertEquals(other, ClientKey.parse(other.toString()));
+    }
+
+    @Test
+    @DisplayName("Non-addresses should not parse as addresses")
+    void testInvalidAddresses() {
+        assertNull(ClientKey.ofAddress("unknown", 0, 7));
+        assertNull(ClientKey.ofAddress("", 0, 0));
+        assertEquals(ClientKey.parse("unknown"), ClientKey.parse("unknown"), "Other identifiers are hashed consistently");
+    }
+}
@@ -0,0 +1,184 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.marvel.springsecurity.service.security.rateLimiting.DistributedRateLimiter;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitInfo;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitMetrics;
+import com.marvel.springsecurity.service.security.rateLimiting.TokenLeaseStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the distributed rate limiter, with two instances sharing an in-memory
+ * stand-in for the Postgres lease store (same GCRA arithmetic as the SQL upsert).
+ */
+class DistributedRateLimiterTest {
+
+    private RateLimitConfig config;
+    private InMemoryLeaseStore store;
+    private DistributedRateLimiter nodeA;
+    private DistributedRateLimiter nodeB;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.setUserUpdate(new RateLimitConfig.EndpointLimit(100, 3600));
+        store = new InMemoryLeaseStore();
+        RateLimitMetrics metrics = new RateLimitMetrics(new SimpleMeterRegistry(), 20, 10_000, 600_000);
+        nodeA = new DistributedRateLimiter(config, store, metrics, 10, 60_000, 50);
+        nodeB = new DistributedRateLimiter(config, store, metrics, 10, 60_000, 50);
+    }
+
+    @Test
+    @DisplayName("Instances sharing a store should together allow the configured limit only")
+    void testLimitSharedAcrossInstances() {
+        String key = "ip:10.0.0.1";
+        int allowed = 0;
+        for (int i = 0; i < 300; i++) {
+            DistributedRateLimiter node = i % 2 == 0 ? nodeA : nodeB;
+            if (node.allowRequest(key, "/api/user/update-name")) {
+                allowed++;
+            }
+        }
+
+        assertEquals(100, allowed, "Two instances must not double the limit");
+    }
+
+    @Test
+    @DisplayName("Tokens should be leased in batches, not fetched per request")
+    void testStoreHitOncePerBatch() {
+        String key = "ip:10.0.0.2";
+        for (int i = 0; i < 50; i++) {
+            assertTrue(nodeA.allowRequest(key, "/api/user/update-name"));
+        }
+
+        // 100 requests per hour are leased 10 at a time
+        assertEquals(5, store.leaseCalls.get());
+    }
+
+    @Test
+    @DisplayName("Empty bucket should be answered locally until the next token is due")
+    void testEmptyBucketNotPolled() {
+        String key = "ip:10.0.0.3";
+        for (int i = 0; i < 100; i++) {
+            nodeA.allowRequest(key, "/api/user/update-name");
+        }
+        int callsWhenEmpty = store.leaseCalls.get();
+
+        for (int i = 0; i < 50; i++) {
+            assertFalse(nodeA.allowRequest(key, "/api/user/update-name"));
+        }
+        assertEquals(callsWhenEmpty + 1, store.leaseCalls.get());
+    }
+
+    @Test
+    @DisplayName("Strict limits should be leased one token at a time")
+    void testStrictLimitsExact() {
+        String key = "ip:10.0.0.4";
+        // Login: 10 per 15 minutes, split over two instances
+        for (int i = 0; i < 5; i++) {
+            assertTrue(nodeA.allowRequest(key, "/api/login"));
+            assertTrue(nodeB.allowRequest(key, "/api/login"));
+        }
+        assertFalse(nodeA.allowRequest(key, "/api/login"));
+        assertFalse(nodeB.allowRequest(key, "/api/login"));
+    }
+
+    @Test
+    @DisplayName("Reset and inspect should work on the shared state")
+    void testInspectAndReset() {
+        String key = "ip:10.0.0.5";
+        for (int i = 0; i < 3; i++) {
+            nodeA.allowRequest(key, "/api/login");
+        }
+
+        List<RateLimitInfo> limits = nodeB.inspect(key);
+        assertEquals(1, limits.size());
+        assertEquals("/api/login", limits.get(0).endpoint());
+        assertEquals(7, limits.get(0).remaining());
+
+        nodeB.resetLimit(key);
+        assertTrue(nodeB.inspect(key).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Unavailable store should fall back to local limits")
+    void testFallbackWhenStoreDown() {
+        String key = "ip:10.0.0.6";
+        store.down = true;
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(nodeA.allowRequest(key, "/api/login"));
+        }
+        assertFalse(nodeA.allowRequest(key, "/api/login"));
+        assertTrue(nodeA.allowRequest(key, "/api/books"), "Unlimited endpoints stay unlimited");
+    }
+
+    @Test
+    @DisplayName("Store should not be called again until the failure backoff has passed")
+    void testStoreSkippedAfterFailure() throws InterruptedException {
+        String key = "ip:10.0.0.7";
+        store.down = true;
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(nodeA.allowRequest(key, "/api/login"));
+        }
+        assertEquals(1, store.failedCalls.get(), "Only the first request should wait on the failing store");
+
+        store.down = false;
+        Thread.sleep(60);
+        assertTrue(nodeA.allowRequest(key, "/api/user/update-name"));
+        assertEquals(1, store.leaseCalls.get(), "After the backoff the store should be probed again");
+        assertTrue(nodeA.allowRequest("ip:10.0.0.8", "/api/login"));
+        assertEquals(2, store.leaseCalls.get(), "A successful probe should close the breaker");
+    }
+
+    private static class InMemoryLeaseStore implements TokenLeaseStore {
+
+        private final Map<String, Map<Integer, Long>> buckets = new HashMap<>();
+        private final AtomicInteger leaseCalls = new AtomicInteger();
+        private final AtomicInteger failedCalls = new AtomicInteger();
+        private volatile boolean down;
+
+        @Override
+        public synchronized Lease lease(String identifier, int routeId, int requested,
+                                        long intervalMillis, long burstMillis, long nowMillis) {
+            if (down) {
+                failedCalls.incrementAndGet();
+                throw new IllegalStateException("store unavailable");
+            }
+            leaseCalls.incrementAndGet();
+            Map<Integer, Long> client = buckets.computeIfAbsent(identifier, k -> new HashMap<>());
+            long tat = client.getOrDefault(routeId, nowMillis);
+            long granted = Math.max(0, Math.min(requested,
+                    (burstMillis - Math.max(tat - nowMillis, 0)) / intervalMillis));
+            long newTat = Math.max(tat, nowMillis) + granted * intervalMillis;
+            client.put(routeId, newTat);
+            return new Lease((int) granted, newTat);
+        }
+
+        @Override
+        public synchronized Map<Integer, Long> arrivalTimes(String identifier) {
+            return Map.copyOf(buckets.getOrDefault(identifier, Map.of()));
+        }
+
+        @Override
+        public synchronized void reset(String identifier) {
+            buckets.remove(identifier);
+        }
+
+        @Override
+        public synchronized int purgeRefilled(long nowMillis) {
+            return 0;
+        }
+    }
+}
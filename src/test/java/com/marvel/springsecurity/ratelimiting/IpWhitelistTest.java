@@ -0,0 +1,67 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.marvel.springsecurity.service.security.rateLimiting.ClientKey;
+import com.marvel.springsecurity.service.security.rateLimiting.IpWhitelist;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CIDR-aware rate limit whitelist.
+ */
+class IpWhitelistTest {
+
+    private final IpWhitelist whitelist =
+            IpWhitelist.parse("127.0.0.1, ::1, 10.0.0.0/8, 192.168.1.0/24, 2001:db8::/32");
+
+    @Test
+    @DisplayName("Exact IPv4 and IPv6 entries should match")
+    void testExactEntries() {
+        assertTrue(whitelist.contains("127.0.0.1"));
+        assertTrue(whitelist.contains("::1"));
+        assertTrue(whitelist.contains("0:0:0:0:0:0:0:1"), "Expanded IPv6 form should match");
+        assertFalse(whitelist.contains("127.0.0.2"));
+        assertFalse(whitelist.contains("::2"));
+    }
+
+    @Test
+    @DisplayName("CIDR ranges should match every address inside them only")
+    void testCidrRanges() {
+        assertTrue(whitelist.contains("10.1.2.3"));
+        assertTrue(whitelist.contains("192.168.1.255"));
+        assertTrue(whitelist.contains("2001:db8:1::5"));
+        assertTrue(whitelist.contains("2001:db8::1%eth0"), "Zone id should be ignored");
+        assertFalse(whitelist.contains("11.0.0.1"));
+        assertFalse(whitelist.contains("192.168.2.1"));
+        assertFalse(whitelist.contains("2001:db9::1"));
+    }
+
+    @Test
+    @DisplayName("IPv4-mapped IPv6 addresses should match IPv4 entries")
+    void testIpv4MappedAddresses() {
+        assertTrue(whitelist.contains("::ffff:10.9.9.9"));
+        assertFalse(whitelist.contains("::ffff:11.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Malformed addresses should never match")
+    void testMalformedAddresses() {
+        assertFalse(whitelist.contains((String) null));
+        assertFalse(whitelist.contains((ClientKey) null));
+        assertFalse(whitelist.contains(""));
+        assertFalse(whitelist.contains("unknown"));
+        assertFalse(whitelist.contains("10.0.0"));
+        assertFalse(whitelist.contains("10.0.0.1.2"));
+        assertFalse(whitelist.contains("256.0.0.1"));
+        assertFalse(whitelist.contains("1::2::3"));
+    }
+
+    @Test
+    @DisplayName("Invalid entries should fail at startup")
+    void testInvalidEntries() {
+        assertThrows(IllegalArgumentException.class, () -> IpWhitelist.parse("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> IpWhitelist.parse("monitoring.internal"));
+        assertFalse(IpWhitelist.parse(" , ").contains("10.0.0.1"), "Blank entries are ignored");
+    }
+}
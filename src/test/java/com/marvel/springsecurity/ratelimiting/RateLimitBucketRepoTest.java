@@ -0,0 +1,64 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.marvel.springsecurity.repo.RateLimitBucketRepo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the lease upsert (INSERT ... ON CONFLICT DO UPDATE ... RETURNING) against the
+ * configured PostgreSQL database; each test is rolled back.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RateLimitBucketRepoTest {
+
+    // 10 tokens per 10 seconds
+    private static final long INTERVAL = 1000;
+    private static final long BURST = 10_000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Autowired
+    private RateLimitBucketRepo repo;
+
+    @Test
+    @DisplayName("First lease should create a full bucket and take the first grant from it")
+    void testFirstLeaseCreatesBucket() {
+        RateLimitBucketRepo.LeaseResult result = repo.lease("ip:test-first", 1, 4, 4, INTERVAL, BURST, NOW);
+
+        assertEquals(4, result.getGranted());
+        assertEquals(NOW + 4 * INTERVAL, result.getTatMillis());
+    }
+
+    @Test
+    @DisplayName("Leases should drain the bucket and grant nothing once it is empty")
+    void testLeasesDrainBucket() {
+        String identifier = "ip:test-drain";
+        assertEquals(4, repo.lease(identifier, 1, 4, 4, INTERVAL, BURST, NOW).getGranted());
+        assertEquals(4, repo.lease(identifier, 1, 4, 4, INTERVAL, BURST, NOW).getGranted());
+
+        RateLimitBucketRepo.LeaseResult partial = repo.lease(identifier, 1, 4, 4, INTERVAL, BURST, NOW);
+        assertEquals(2, partial.getGranted(), "Only what is left of the burst should be granted");
+        assertEquals(NOW + BURST, partial.getTatMillis());
+
+        RateLimitBucketRepo.LeaseResult empty = repo.lease(identifier, 1, 4, 4, INTERVAL, BURST, NOW);
+        assertEquals(0, empty.getGranted());
+        assertEquals(NOW + BURST, empty.getTatMillis(), "An empty lease must not move the arrival time");
+
+        // Three intervals later three tokens have refilled
+        assertEquals(3, repo.lease(identifier, 1, 4, 4, INTERVAL, BURST, NOW + 3 * INTERVAL).getGranted());
+    }
+
+    @Test
+    @DisplayName("Buckets should be kept per client and route")
+    void testBucketsPerRoute() {
+        String identifier = "ip:test-routes";
+        assertEquals(10, repo.lease(identifier, 1, 10, 10, INTERVAL, BURST, NOW).getGranted());
+        assertEquals(10, repo.lease(identifier, 2, 10, 10, INTERVAL, BURST, NOW).getGranted());
+        assertEquals(2, repo.findByIdentifier(identifier).size());
+    }
+}
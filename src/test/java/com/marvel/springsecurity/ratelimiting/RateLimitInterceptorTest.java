@@ -0,0 +1,87 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marvel.springsecurity.config.RateLimitInterceptor;
+import com.marvel.springsecurity.service.security.JwtService;
+import com.marvel.springsecurity.service.security.rateLimiting.ClientKey;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitDecision;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimiterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for how RateLimitInterceptor keys and charges public reads.
+ */
+class RateLimitInterceptorTest {
+
+    private RateLimiterService rateLimiterService;
+    private RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiterService = mock(RateLimiterService.class);
+        when(rateLimiterService.tryAcquireRead(any(ClientKey.class), anyString(), anyInt()))
+                .thenAnswer(invocation -> RateLimitDecision.unlimited(invocation.getArgument(1)));
+        interceptor = new RateLimitInterceptor(rateLimiterService, mock(JwtService.class), new ObjectMapper(),
+                new RateLimitConfig(), "", "10.0.0.0/8");
+    }
+
+    private static MockHttpServletRequest booksRequest(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    @Test
+    @DisplayName("Forwarding headers from untrusted clients should be ignored")
+    void testSpoofedForwardedForIgnored() throws Exception {
+        MockHttpServletRequest request = booksRequest("203.0.113.7");
+        request.addHeader("X-Forwarded-For", "127.0.0.1");
+        request.addHeader("X-Real-IP", "198.51.100.1");
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+        verify(rateLimiterService).tryAcquireRead(eq(ClientKey.parse("ip:203.0.113.7")), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Trusted proxies should be skipped to find the client address")
+    void testTrustedProxyForwardedFor() throws Exception {
+        MockHttpServletRequest request = booksRequest("10.1.2.3");
+        // Leftmost entry is whatever the client sent, the proxies appended the rest
+        request.addHeader("X-Forwarded-For", "127.0.0.1, 198.51.100.9, 10.4.5.6");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        verify(rateLimiterService).tryAcquireRead(eq(ClientKey.parse("ip:198.51.100.9")), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Without trusted proxies the address added by the nearest proxy should be used")
+    void testForwardedForWithoutTrustedProxies() throws Exception {
+        interceptor = new RateLimitInterceptor(rateLimiterService, mock(JwtService.class), new ObjectMapper(),
+                new RateLimitConfig(), "", "");
+        MockHttpServletRequest request = booksRequest("10.1.2.3");
+        request.addHeader("X-Forwarded-For", "127.0.0.1, 198.51.100.9");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+        verify(rateLimiterService).tryAcquireRead(eq(ClientKey.parse("ip:198.51.100.9")), anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Reads without a size should be charged for the default page size")
+    void testMissingSizeChargedAsDefault() throws Exception {
+        MockHttpServletRequest search = new MockHttpServletRequest("GET", "/api/books/search");
+        search.setRemoteAddr("203.0.113.8");
+        interceptor.preHandle(search, new MockHttpServletResponse(), new Object());
+
+        // Search defaults to 30 results: base cost 3 plus one token for the 10 beyond the first 20
+        verify(rateLimiterService).tryAcquireRead(any(ClientKey.class), eq("/api/books/search"), eq(4));
+    }
+}
@@ -0,0 +1,106 @@
+package com.marvel.springsecurity.ratelimiting;
+
+import com.marvel.springsecurity.service.security.rateLimiting.CaffeineRateLimiter;
+import com.marvel.springsecurity.service.security.rateLimiting.HeavyHitters;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for rate limiter metrics: per-endpoint counters and top limited clients.
+ */
+class RateLimitMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitMetrics metrics;
+    private CaffeineRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new RateLimitMetrics(meterRegistry, 3, 10_000, 600_000);
+        rateLimiter = new CaffeineRateLimiter(new RateLimitConfig(), metrics);
+    }
+
+    @Test
+    @DisplayName("Allowed and rejected requests should be counted per endpoint")
+    void testEndpointCounters() {
+        for (int i = 0; i < 12; i++) {
+            rateLimiter.allowRequest("ip:10.0.0.1", "/api/login");
+        }
+        rateLimiter.allowRequest("ip:10.0.0.1", "/api/books"); // not rate limited, not counted
+
+        assertEquals(10.0, meterRegistry.get("ratelimit.requests")
+                .tags("endpoint", "/api/login", "outcome", "allowed").counter().count());
+        assertEquals(2.0, meterRegistry.get("ratelimit.requests")
+                .tags("endpoint", "/api/login", "outcome", "rejected").counter().count());
+
+        RateLimitMetrics.EndpointCounts login = metrics.endpointCounts().stream()
+                .filter(counts -> counts.endpoint().equals("/api/login"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(10, login.allowed());
+        assertEquals(2, login.rejected());
+    }
+
+    @Test
+    @DisplayName("Most limited clients should be reported first")
+    void testTopOffenders() {
+        for (int i = 0; i < 30; i++) {
+            rateLimiter.allowRequest("ip:10.0.0.1", "/api/login");
+        }
+        for (int i = 0; i < 15; i++) {
+            rateLimiter.allowRequest("ip:10.0.0.2", "/api/login");
+        }
+        rateLimiter.allowRequest("ip:10.0.0.3", "/api/login");
+
+        List<RateLimitMetrics.Offender> top = metrics.topOffenders();
+        assertEquals("ip:10.0.0.1", top.get(0).identifier());
+        assertEquals(20, top.get(0).rejected());
+        assertEquals("ip:10.0.0.2", top.get(1).identifier());
+        assertEquals(5, top.get(1).rejected());
+    }
+
+    @Test
+    @DisplayName("Space-saving sketch should keep frequent items within fixed capacity")
+    void testHeavyHitters() {
+        HeavyHitters<String> sketch = new HeavyHitters<>(2);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("attacker");
+            sketch.offer("attacker");
+            sketch.offer("client-" + i); // one-off items keep replacing each other
+        }
+
+        List<HeavyHitters.Entry<String>> top = sketch.top();
+        assertEquals(2, top.size());
+        assertEquals("attacker", top.get(0).item());
+        assertEquals(200, top.get(0).count());
+        assertEquals(0, top.get(0).error());
+        assertTrue(top.get(1).count() - top.get(1).error() <= 1, "One-off item's true count is at most 1");
+    }
+
+    @Test
+    @DisplayName("Counts should halve with every half-life so past offenders fade out")
+    void testHeavyHittersDecay() throws InterruptedException {
+        HeavyHitters<String> sketch = new HeavyHitters<>(2, TimeUnit.MILLISECONDS.toNanos(50));
+        for (int i = 0; i < 8; i++) {
+            sketch.offer("attacker");
+        }
+        assertEquals(8, sketch.top().get(0).count());
+
+        Thread.sleep(120);
+        long decayed = sketch.top().get(0).count();
+        assertTrue(decayed <= 4, "At least one half-life has passed, count was " + decayed);
+
+        Thread.sleep(400);
+        assertTrue(sketch.top().isEmpty(), "Counts that decay to zero should be dropped");
+    }
+}
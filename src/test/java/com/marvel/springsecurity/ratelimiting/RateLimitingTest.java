@@ -1,12 +1,25 @@
 package com.marvel.springsecurity.ratelimiting;
 
 import com.marvel.springsecurity.service.security.rateLimiting.CaffeineRateLimiter;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitAlgorithm;
 import com.marvel.springsecurity.service.security.rateLimiting.RateLimitConfig;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitDecision;
 import com.marvel.springsecurity.service.security.rateLimiting.RateLimitInfo;
+import com.marvel.springsecurity.service.security.rateLimiting.RateLimitState;
+import com.marvel.springsecurity.service.security.rateLimiting.SlidingWindowCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -160,6 +173,24 @@ class RateLimitingTest {
         assertEquals(endpoint, info.endpoint(), "Endpoint should match");
     }
 
+    @Test
+    @DisplayName("tryAcquire should return the decision with matching limit info")
+    void testTryAcquire() {
+        String testIp = "192.168.1.111";
+        String endpoint = "/api/resend-verification";
+
+        // Resend limit is 1 per 5 minutes
+        RateLimitDecision first = rateLimiter.tryAcquire(testIp, endpoint);
+        assertTrue(first.allowed(), "First request should be allowed");
+        assertEquals(0, first.info().remaining(), "No requests should remain after the first");
+        assertEquals(1, first.info().limit());
+        assertEquals(endpoint, first.info().endpoint());
+
+        RateLimitDecision second = rateLimiter.tryAcquire(testIp, endpoint);
+        assertFalse(second.allowed(), "Second request should be blocked");
+        assertTrue(second.info().retryAfterSeconds() > 0, "Blocked decision should tell when to retry");
+    }
+
     @Test
     @DisplayName("Non-rate-limited endpoint should always be allowed")
     void testNonRateLimitedEndpoint() {
@@ -200,6 +231,78 @@ class RateLimitingTest {
         assertEquals(3600, limit.getWindowSeconds(), "oauth/submit-email window should be 1 hour");
     }
 
+    @Test
+    @DisplayName("RateLimitConfig should prefer the most specific route")
+    void testConfigLongestPrefixMatch() {
+        RateLimitConfig.EndpointLimit upload = config.getConfigForEndpoint("/api/user/update-profile-pic");
+        assertSame(config.getFileUpload(), upload, "update-profile-pic should use the file upload limit");
+
+        RateLimitConfig.EndpointLimit password = config.getConfigForEndpoint("/api/user/update-password");
+        assertSame(config.getResetPassword(), password, "update-password should use the reset password limit");
+
+        RateLimitConfig.EndpointLimit other = config.getConfigForEndpoint("/api/user/update-name");
+        assertSame(config.getUserUpdate(), other, "Other /user endpoints should use the catch-all limit");
+    }
+
+    @Test
+    @DisplayName("RateLimitConfig should pick up replaced limits without a rebuild")
+    void testConfigReflectsPropertyChanges() {
+        RateLimitConfig.EndpointLimit replaced = new RateLimitConfig.EndpointLimit(50, 60);
+        config.setLogin(replaced);
+
+        assertSame(replaced, config.getConfigForEndpoint("/api/login"));
+    }
+
+    @Test
+    @DisplayName("Limits without requests or window should be rejected when configured")
+    void testNonPositiveLimitsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitConfig.EndpointLimit(0, 60));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitConfig.EndpointLimit(10, 0));
+
+        // Property binding goes through the setters
+        RateLimitConfig.EndpointLimit bound = new RateLimitConfig.EndpointLimit();
+        assertThrows(IllegalArgumentException.class, () -> bound.setRequests(-1));
+        assertThrows(IllegalArgumentException.class, () -> bound.setWindowSeconds(0));
+    }
+
+    @Test
+    @DisplayName("Concurrent requests should never exceed the bucket capacity")
+    void testConcurrentRequestsRespectCapacity() throws Exception {
+        // 1000 per day: no meaningful refill while the test runs
+        config.setLogin(new RateLimitConfig.EndpointLimit(1000, 86400));
+        String testIp = "192.168.1.110";
+        String endpoint = "/api/login";
+        int threads = 16;
+        int attemptsPerThread = 500;
+
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (rateLimiter.allowRequest(testIp, endpoint)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1000, allowed.get(), "Exactly the bucket capacity should be allowed");
+        assertEquals(0, rateLimiter.getLimitInfo(testIp, endpoint).remaining());
+    }
+
     @Test
     @DisplayName("Reset limit should clear user's rate limit state")
     void testResetLimit() {
@@ -219,4 +322,162 @@ class RateLimitingTest {
         assertTrue(rateLimiter.allowRequest(testIp, endpoint),
                 "Should be allowed after reset");
     }
+
+    @Test
+    @DisplayName("Inspect should list only the limits a client has used")
+    void testInspect() {
+        String testIp = "192.168.1.110";
+
+        assertTrue(rateLimiter.inspect(testIp).isEmpty(), "Unknown client has no limits");
+
+        rateLimiter.allowRequest(testIp, "/api/login");
+        rateLimiter.allowRequest(testIp, "/api/login");
+        rateLimiter.allowRequest(testIp, "/api/register");
+        rateLimiter.allowRequest(testIp, "/api/books");
+
+        List<RateLimitInfo> limits = rateLimiter.inspect(testIp);
+        assertEquals(2, limits.size());
+        RateLimitInfo login = limits.stream()
+                .filter(info -> info.endpoint().equals("/api/login"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(8, login.remaining());
+
+        rateLimiter.resetLimit(testIp);
+        assertTrue(rateLimiter.inspect(testIp).isEmpty(), "Reset should drop every bucket of the client");
+    }
+
+    @Test
+    @DisplayName("Register and resend should use the sliding window by default")
+    void testDefaultAlgorithms() {
+        assertEquals(RateLimitAlgorithm.SLIDING_WINDOW, config.getConfigForEndpoint("/api/register").getAlgorithm());
+        assertEquals(RateLimitAlgorithm.SLIDING_WINDOW, config.getConfigForEndpoint("/api/resend-verification").getAlgorithm());
+        assertEquals(RateLimitAlgorithm.TOKEN_BUCKET, config.getConfigForEndpoint("/api/login").getAlgorithm());
+    }
+
+    @Test
+    @DisplayName("Every algorithm should allow exactly the limit within one window")
+    void testAlgorithmsRespectCapacity() {
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            RateLimitState state = algorithm.newState(5, 3600);
+            for (int i = 0; i < 5; i++) {
+                assertTrue(state.tryConsume(), algorithm + ": request " + (i + 1) + " should be allowed");
+            }
+            assertFalse(state.tryConsume(), algorithm + ": 6th request should be blocked");
+            assertEquals(0, state.getAvailableTokens(), algorithm + ": nothing should remain");
+            assertTrue(state.getResetTimeEpochSeconds() > System.currentTimeMillis() / 1000);
+        }
+    }
+
+    @Test
+    @DisplayName("Endpoint algorithm should be configurable")
+    void testConfiguredAlgorithmUsed() {
+        String testIp = "192.168.1.112";
+        config.setLogin(new RateLimitConfig.EndpointLimit(2, 900, RateLimitAlgorithm.FIXED_WINDOW));
+
+        RateLimitDecision first = rateLimiter.tryAcquire(testIp, "/api/login");
+        assertTrue(first.allowed());
+        assertEquals(1, first.info().remaining());
+        assertTrue(rateLimiter.allowRequest(testIp, "/api/login"));
+        assertFalse(rateLimiter.allowRequest(testIp, "/api/login"));
+    }
+
+    @Test
+    @DisplayName("Sliding window should reject limits it cannot count")
+    void testSlidingWindowCapacityBound() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(70_000, 60));
+    }
+
+    @Test
+    @DisplayName("Window counters should not admit more than the limit per window across boundaries")
+    void testWindowCountersUnderConcurrentRollover() throws Exception {
+        int threads = 16;
+        int capacity = 50;
+        long runNanos = TimeUnit.MILLISECONDS.toNanos(2500);
+        for (RateLimitAlgorithm algorithm : List.of(RateLimitAlgorithm.FIXED_WINDOW, RateLimitAlgorithm.SLIDING_WINDOW)) {
+            // One second windows, hammered by every thread while several of them roll over
+            long created = System.nanoTime();
+            RateLimitState state = algorithm.newState(capacity, 1);
+            AtomicInteger allowed = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        long end = System.nanoTime() + runNanos;
+                        while (System.nanoTime() - end < 0) {
+                            if (state.tryConsume()) {
+                                allowed.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // A state moved back to an older window would forget the newer window's count
+            long windows = (System.nanoTime() - created) / TimeUnit.SECONDS.toNanos(1) + 1;
+            assertTrue(allowed.get() <= capacity * windows,
+                    algorithm + ": " + allowed.get() + " allowed in at most " + windows + " windows of " + capacity);
+        }
+    }
+
+    @Test
+    @DisplayName("Every algorithm should charge a weighted request all at once or not at all")
+    void testAlgorithmsChargeCost() {
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            RateLimitState state = algorithm.newState(10, 3600);
+            RateLimitDecision first = state.tryAcquire("/api/books", 4);
+            assertTrue(first.allowed(), algorithm + ": cost 4 should fit");
+            assertEquals(6, first.info().remaining(), algorithm + ": 6 should remain");
+
+            assertFalse(state.tryAcquire("/api/books", 7).allowed(), algorithm + ": cost 7 should not fit");
+            assertEquals(6, state.getAvailableTokens(), algorithm + ": a rejected request should consume nothing");
+
+            assertTrue(state.tryAcquire("/api/books", 6).allowed(), algorithm + ": the rest should fit exactly");
+            assertFalse(state.tryConsume(), algorithm + ": budget should be used up");
+        }
+    }
+
+    @Test
+    @DisplayName("Read cost should grow with the requested page size")
+    void testReadCost() {
+        RateLimitConfig.ReadLimits read = config.getRead();
+        assertEquals(1, read.costOf(1, 0), "No page size: base cost only");
+        assertEquals(1, read.costOf(1, 20), "First 20 items are included in the base cost");
+        assertEquals(2, read.costOf(1, 21));
+        assertEquals(5, read.costOf(1, 100), "100 items cost as much as 5 pages of 20");
+        assertEquals(7, read.costOf(3, 100), "Search has a higher base cost");
+    }
+
+    @Test
+    @DisplayName("Public reads should draw from one per-client budget")
+    void testReadBudget() {
+        String testIp = "192.168.1.113";
+        config.getRead().setBudget(new RateLimitConfig.EndpointLimit(10, 60));
+
+        assertTrue(rateLimiter.tryAcquireRead(testIp, "/api/books", 5).allowed());
+        RateLimitDecision search = rateLimiter.tryAcquireRead(testIp, "/api/books/search", 5);
+        assertTrue(search.allowed());
+        assertEquals(0, search.info().remaining());
+        assertEquals(10, search.info().limit());
+        assertFalse(rateLimiter.tryAcquireRead(testIp, "/api/books", 1).allowed(),
+                "Budget is shared by all read endpoints");
+        assertTrue(rateLimiter.tryAcquireRead("192.168.1.114", "/api/books", 5).allowed(),
+                "Other clients have their own budget");
+
+        assertTrue(rateLimiter.inspect(testIp).stream().anyMatch(info -> info.endpoint().equals("/api/reads")));
+        assertTrue(rateLimiter.allowRequest(testIp, "/api/login"), "Read budget should not affect other limits");
+
+        config.getRead().setEnabled(false);
+        assertTrue(rateLimiter.tryAcquireRead(testIp, "/api/books", 1).allowed());
+    }
 }
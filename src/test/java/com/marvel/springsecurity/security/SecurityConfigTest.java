@@ -52,6 +52,15 @@ class SecurityConfigTest {
                     .andExpect(status().isOk());
         }
 
+        @Test
+        @DisplayName("Should allow health probes without token but keep other actuator endpoints protected")
+        void testActuatorHealthNoAuth() throws Exception {
+            mockMvc.perform(get("/actuator/health/liveness"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/actuator/metrics"))
+                    .andExpect(status().isUnauthorized());
+        }
+
         @Test
         @DisplayName("Should reject access to protected endpoints without token")
         void testProtectedEndpointNoToken() throws Exception {
@@ -0,0 +1,117 @@
+package com.marvel.springsecurity.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.marvel.springsecurity.service.book.store.CloudinaryImageStore;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CDN call timeouts of CloudinaryImageStore, against a local
+ * endpoint that accepts requests but never answers, and for how upload responses
+ * are turned into results or errors.
+ */
+class CloudinaryImageStoreTest {
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CloudinaryImageStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        server.start();
+
+        Cloudinary cloudinary = new Cloudinary(ObjectUtils.asMap(
+                "cloud_name", "test",
+                "api_key", "key",
+                "api_secret", "secret",
+                "upload_prefix", "http://127.0.0.1:" + server.getAddress().getPort()));
+        store = new CloudinaryImageStore(cloudinary, BulkheadRegistry.ofDefaults(),
+                CircuitBreakerRegistry.ofDefaults(), 1, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Uploads to a stalled CDN should time out")
+    void testUploadTimesOut() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(Exception.class, () -> store.upload(new byte[]{1, 2, 3}, "books/abc")));
+    }
+
+    @Test
+    @DisplayName("Destroy calls to a stalled CDN should time out")
+    void testDeleteTimesOut() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(Exception.class, () -> store.delete("books/abc")));
+    }
+
+    @Test
+    @DisplayName("Admin API bulk deletes to a stalled CDN should time out")
+    void testDeleteAllTimesOut() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(Exception.class, () -> store.deleteAll(List.of("books/abc", "books/def"))));
+    }
+
+    private void respondToUploads(int status, String body) {
+        server.createContext("/v1_1/test/image/upload", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+    }
+
+    @Test
+    @DisplayName("Successful uploads should return the stored image URL")
+    void testUploadReturnsUrl() throws Exception {
+        respondToUploads(200, "{\"public_id\":\"books/abc\",\"secure_url\":\"https://cdn.test/books/abc.jpg\"}");
+
+        assertEquals("https://cdn.test/books/abc.jpg", store.upload(new byte[]{1, 2, 3}, "books/abc"));
+    }
+
+    @Test
+    @DisplayName("Server errors should surface as retryable I/O errors")
+    void testServerErrorIsIOException() {
+        respondToUploads(503, "{\"error\":{\"message\":\"unavailable\"}}");
+
+        assertThrows(IOException.class, () -> store.upload(new byte[]{1, 2, 3}, "books/abc"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.marvel.springsecurity.service;
+
+import com.marvel.springsecurity.service.book.ImageResizer;
+import com.marvel.springsecurity.service.book.ImageResizer.ImageVariant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImageResizer variants and EXIF orientation handling.
+ */
+class ImageResizerTest {
+
+    private final ImageResizer resizer = new ImageResizer(40_000_000);
+
+    /**
+     * 400x200 JPEG, red on the left half and blue on the right.
+     */
+    private static byte[] landscapeJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 200, 200);
+        g.setColor(Color.BLUE);
+        g.fillRect(200, 0, 200, 200);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert an APP1 Exif segment holding only the orientation tag after the JFIF header.
+     */
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer exif = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4);
+        exif.put("Exif\0\0".getBytes());
+        exif.put(new byte[]{'M', 'M', 0, 42}).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+
+        // SOI, then the APP0 (JFIF) segment whose length follows its marker
+        int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, app0End);
+        int length = exif.capacity() + 2;
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length}, 0, 4);
+        out.write(exif.array(), 0, exif.capacity());
+        out.write(jpeg, app0End, jpeg.length - app0End);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage read(byte[] bytes) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 60;
+    }
+
+    @Test
+    @DisplayName("Every variant should be produced and fit its maximum edge")
+    void testVariants() throws IOException {
+        Map<ImageVariant, byte[]> variants = resizer.resize(landscapeJpeg());
+
+        assertEquals(400, read(variants.get(ImageVariant.FULL)).getWidth(), "Small images are never upscaled");
+        BufferedImage thumb = read(variants.get(ImageVariant.THUMB));
+        assertEquals(200, thumb.getWidth());
+        assertEquals(100, thumb.getHeight());
+    }
+
+    @Test
+    @DisplayName("EXIF orientation should be applied so variants display upright")
+    void testExifOrientationApplied() throws IOException {
+        // 6: stored sideways, to be rotated 90 degrees clockwise for display
+        Map<ImageVariant, byte[]> variants = resizer.resize(withOrientation(landscapeJpeg(), 6));
+
+        BufferedImage full = read(variants.get(ImageVariant.FULL));
+        assertEquals(200, full.getWidth());
+        assertEquals(400, full.getHeight());
+        // Rotating clockwise moves the left (red) half to the top
+        assertTrue(isRed(full.getRGB(100, 50)), "Top should be red");
+        assertFalse(isRed(full.getRGB(100, 350)), "Bottom should be blue");
+
+        BufferedImage thumb = read(variants.get(ImageVariant.THUMB));
+        assertEquals(100, thumb.getWidth());
+        assertEquals(200, thumb.getHeight());
+    }
+
+    @Test
+    @DisplayName("Images without an orientation tag should be kept as stored")
+    void testNoOrientationKept() throws IOException {
+        BufferedImage full = read(resizer.resize(withOrientation(landscapeJpeg(), 1)).get(ImageVariant.FULL));
+
+        assertEquals(400, full.getWidth());
+        assertTrue(isRed(full.getRGB(50, 100)), "Left should stay red");
+    }
+}
@@ -1,6 +1,11 @@
 package com.marvel.springsecurity.service;
 
+import com.marvel.springsecurity.repo.UserRepository;
 import com.marvel.springsecurity.service.security.JwtService;
+import com.marvel.springsecurity.service.security.ParsedToken;
+import com.marvel.springsecurity.service.security.RoleVersionService;
+import com.marvel.springsecurity.service.security.RoleVersionServiceImpl;
+import com.marvel.springsecurity.service.security.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
@@ -11,9 +16,11 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 /**
  * Comprehensive unit tests for JwtService.
@@ -277,6 +284,92 @@ class JwtServiceTest {
         }
     }
 
+    // ==================== PARSED TOKEN TESTS ====================
+
+    @Nested
+    @DisplayName("Parsed Token Tests")
+    class ParsedTokenTests {
+
+        @Test
+        @DisplayName("Should expose all auth claims from a single parse")
+        void testParseAuthToken() {
+            String token = jwtService.generateToken(TEST_USERNAME, TEST_ROLE, TEST_ROLE_VERSION, TEST_USER_ID);
+
+            ParsedToken parsed = jwtService.parse(token);
+
+            assertEquals(TEST_USERNAME, parsed.subject());
+            assertEquals(TEST_ROLE, parsed.role());
+            assertEquals(TEST_ROLE_VERSION, parsed.roleVersion());
+            assertEquals(TEST_USER_ID, parsed.userId());
+            assertNull(parsed.type());
+            assertFalse(parsed.isExpired());
+        }
+
+        @Test
+        @DisplayName("Should pick up a changed secret instead of reusing the cached key")
+        void testSecretChangeRebuildsKey() {
+            String token = jwtService.generateToken(TEST_USERNAME, TEST_ROLE);
+            assertEquals(TEST_USERNAME, jwtService.parse(token).subject());
+
+            ReflectionTestUtils.setField(jwtService, "secretKey",
+                    "different_secret_key_that_is_long_enough_for_256_bits");
+
+            assertThrows(SignatureException.class, () -> jwtService.parse(token));
+        }
+    }
+
+    // ==================== VERIFIED TOKEN CACHE TESTS ====================
+
+    @Nested
+    @DisplayName("Verified Token Cache Tests")
+    class VerifiedTokenCacheTests {
+
+        @Test
+        @DisplayName("Should return a cached token only for the exact same token string")
+        void testCacheHitRequiresSameToken() {
+            VerifiedTokenCache cache = new VerifiedTokenCache(100);
+            String token = jwtService.generateToken(TEST_USERNAME, TEST_ROLE, TEST_ROLE_VERSION, TEST_USER_ID);
+            ParsedToken parsed = jwtService.parse(token);
+            cache.put(token, parsed);
+
+            assertSame(parsed, cache.get(token));
+
+            // Same signature, different payload must not be served from the cache
+            String[] parts = token.split("\\.");
+            String tampered = parts[0] + "." + parts[1] + "x." + parts[2];
+            assertNull(cache.get(tampered));
+        }
+
+        @Test
+        @DisplayName("Should drop invalidated tokens")
+        void testInvalidate() {
+            VerifiedTokenCache cache = new VerifiedTokenCache(100);
+            String token = jwtService.generateToken(TEST_USERNAME, TEST_ROLE, TEST_ROLE_VERSION, TEST_USER_ID);
+            cache.put(token, jwtService.parse(token));
+
+            cache.invalidateUser(TEST_USERNAME);
+
+            assertNull(cache.get(token));
+        }
+
+        @Test
+        @DisplayName("Evicting a user's role version should drop their cached tokens")
+        void testRoleVersionEvictionDropsTokens() {
+            VerifiedTokenCache cache = new VerifiedTokenCache(100);
+            RoleVersionService roleVersionService = new RoleVersionServiceImpl(
+                    mock(UserRepository.class), cache, 100, Duration.ofSeconds(30));
+            String token = jwtService.generateToken(TEST_USERNAME, TEST_ROLE, TEST_ROLE_VERSION, TEST_USER_ID);
+            String otherToken = jwtService.generateToken("otheruser", TEST_ROLE, TEST_ROLE_VERSION, TEST_USER_ID + 1);
+            cache.put(token, jwtService.parse(token));
+            cache.put(otherToken, jwtService.parse(otherToken));
+
+            roleVersionService.evict(TEST_USERNAME);
+
+            assertNull(cache.get(token));
+            assertNotNull(cache.get(otherToken), "Other users' tokens should stay cached");
+        }
+    }
+
     // ==================== SECURITY VULNERABILITY TESTS ====================
 
     @Nested
@@ -0,0 +1,85 @@
+package com.marvel.springsecurity.service;
+
+import com.marvel.springsecurity.repo.RevokedTokenRepo;
+import com.marvel.springsecurity.service.security.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenRevocationService.
+ * The Bloom filter must answer "not revoked" without touching the database.
+ */
+class TokenRevocationServiceTest {
+
+    private RevokedTokenRepo revokedTokenRepo;
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepo = mock(RevokedTokenRepo.class);
+        revocationService = new TokenRevocationService(revokedTokenRepo, 1000, 0.001);
+    }
+
+    @Test
+    @DisplayName("Should answer unknown tokens from memory only")
+    void testNotRevokedSkipsDatabase() {
+        for (int i = 0; i < 100; i++) {
+            revocationService.revoke(UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (revocationService.isRevoked(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertEquals(0, falsePositives);
+        // Only the (rare) filter false positives may reach the repository
+        verify(revokedTokenRepo, atMost(5)).existsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm revoked tokens against the database")
+    void testRevokedToken() {
+        String tokenId = UUID.randomUUID().toString();
+        when(revokedTokenRepo.existsById(tokenId)).thenReturn(true);
+        when(revokedTokenRepo.insertIfAbsent(eq(tokenId), any())).thenReturn(1);
+
+        assertTrue(revocationService.revoke(tokenId, Instant.now().plusSeconds(60)));
+
+        assertTrue(revocationService.isRevoked(tokenId));
+        verify(revokedTokenRepo).insertIfAbsent(eq(tokenId), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Should report a token that was already revoked")
+    void testRevokeTwice() {
+        String tokenId = UUID.randomUUID().toString();
+        when(revokedTokenRepo.insertIfAbsent(eq(tokenId), any())).thenReturn(1, 0);
+
+        assertTrue(revocationService.revoke(tokenId, Instant.now().plusSeconds(60)));
+        assertFalse(revocationService.revoke(tokenId, Instant.now().plusSeconds(60)));
+    }
+
+    @Test
+    @DisplayName("Should load existing revocations when rebuilding")
+    void testRebuildFromTable() {
+        String tokenId = UUID.randomUUID().toString();
+        when(revokedTokenRepo.findActiveTokenIds(any())).thenReturn(List.of(tokenId));
+        when(revokedTokenRepo.existsById(tokenId)).thenReturn(true);
+
+        revocationService.rebuild();
+
+        assertTrue(revocationService.isRevoked(tokenId));
+    }
+}